@@ -0,0 +1,60 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Console input that never holds up the game
+ * - A reader thread blocks on the Scanner and queues each line
+ * - The game thread waits on the queue, which other threads (the session
+ *   timer) can wake with expire(), so a player idling at the prompt still
+ *   times out on schedule
+ */
+public class AsyncInput
+{
+  public enum Kind { LINE, END_OF_INPUT, EXPIRED }
+
+  /** One queued event; text is set for LINE only. */
+  public static final class Event
+  {
+    public final Kind kind;
+    public final String text;
+
+    private Event(Kind kind, String text)
+    {
+      this.kind = kind;
+      this.text = text;
+    }
+  }
+
+  private static final Event EOF     = new Event(Kind.END_OF_INPUT, null);
+  private static final Event EXPIRED = new Event(Kind.EXPIRED, null);
+
+  private final BlockingQueue<Event> inbox = new LinkedBlockingQueue<>();
+
+  /** Start reading UserInput's console Scanner on a background thread. */
+  public AsyncInput()
+  {
+    Threads.newThread("EscapeRoom-input", this::readLoop).start();
+  }
+
+  private void readLoop()
+  {
+    try
+    {
+      while (true) inbox.add(new Event(Kind.LINE, UserInput.getLine()));
+    }
+    catch (NoSuchElementException | IllegalStateException e)
+    {
+      inbox.add(EOF);
+    }
+  }
+
+  /** Wake next() with an EXPIRED event (any thread). */
+  public void expire() { inbox.add(EXPIRED); }
+
+  /** Block until a line arrives, input ends or expire() is called. */
+  public Event next() throws InterruptedException
+  {
+    return inbox.take();
+  }
+}
@@ -0,0 +1,424 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Many headless games stepped in lock-step, for bot and RL training
+ * - Board state lives in flat primitive arrays (wall words, packed items, player,
+ *   score, powerup), one slice per board; no per-board objects
+ * - step(actions) applies one command per board with exactly the GameSession
+ *   rules and fills reusable observation / reward / done buffers; it allocates
+ *   nothing except when a finished board is regenerated
+ * - Boards are split in fixed chunks run on the common fork/join pool
+ * - An episode is maxCommands commands (the session timer as a command budget,
+ *   as in MonteCarlo) or ends at QUIT; the end bonus is paid, done is set and the
+ *   board restarts on a new board in the same step (obs shows the new episode)
+ * - Episode e of board i is generated from seed Seeds.mix(seed, i<<32 | e), so
+ *   runs are reproducible whatever the chunking
+ *
+ * Actions are Command ordinals (negative = no command). Observation, obsSize() ints per board:
+ *   col, row, score, double-coin steps left (0 if none), commands left,
+ *   then the (2*radius+1)^2 cells around the player, row by row:
+ *   item kind | WALL_RIGHT | WALL_BOTTOM, or OFF_GRID
+ *
+ * Usage: java BatchEnv [boards=4096] [steps=2000] [size=8x5] [radius=2] [seed=1]
+ *        (random actions; reports steps per second and the mean episode score)
+ */
+public class BatchEnv
+{
+  public static final int OBS_SCALARS = 5;
+  public static final int WALL_RIGHT  = BoardSnapshot.WALL_RIGHT << 2;
+  public static final int WALL_BOTTOM = BoardSnapshot.WALL_BOTTOM << 2;
+  public static final int OFF_GRID    = 16;
+
+  private static final int BOARDS_PER_TASK = 512;
+  private static final Command[] COMMANDS = Command.values();
+  private static final int[][] DISARM_OFFSETS = { {0,0}, {1,0}, {-1,0}, {0,1}, {0,-1} };
+
+  private final int boards, gridW, gridH;
+  private final ScoreConfig cfg;
+  private final int maxCommands;
+  private final int radius, obsSize;
+  private final long seed;
+  private final int wallWords, itemWords;
+
+  // per board, board i at [i*wallWords] / [i*itemWords]
+  private final long[] vertical, horizontal;
+  private final long[] items, boardItems;      // live / as generated (replay)
+  private final int[] col, row, steps, score, commands, episode;
+  private final boolean[] doubleCoins;
+  private final int[] doubleCoinsLeft;
+  private final int[] finalScore;
+
+  // reusable outputs
+  private final int[] obs;
+  private final float[] reward;
+  private final boolean[] done;
+
+  private final Chunk[] chunks;
+  private int[] actions;        // null while resetting
+
+  /** Boards of gridW x gridH scored by cfg, episodes of maxCommands commands. */
+  public BatchEnv(int boards, int gridW, int gridH, ScoreConfig cfg, int maxCommands, int radius, long seed)
+  {
+    if (boards < 1 || maxCommands < 1 || radius < 0)
+      throw new IllegalArgumentException("need boards >= 1, maxCommands >= 1, radius >= 0");
+    this.boards = boards;
+    this.gridW = gridW;
+    this.gridH = gridH;
+    this.cfg = cfg.copy();
+    this.maxCommands = maxCommands;
+    this.radius = radius;
+    this.obsSize = OBS_SCALARS + (2*radius + 1) * (2*radius + 1);
+    this.seed = seed;
+
+    wallWords = (gridW * gridH + 63) >>> 6;
+    itemWords = (gridW * gridH + 31) >>> 5;
+    vertical   = new long[boards * wallWords];
+    horizontal = new long[boards * wallWords];
+    items      = new long[boards * itemWords];
+    boardItems = new long[boards * itemWords];
+    col = new int[boards];
+    row = new int[boards];
+    steps = new int[boards];
+    score = new int[boards];
+    commands = new int[boards];
+    episode = new int[boards];
+    doubleCoins = new boolean[boards];
+    doubleCoinsLeft = new int[boards];
+    finalScore = new int[boards];
+
+    obs = new int[boards * obsSize];
+    reward = new float[boards];
+    done = new boolean[boards];
+
+    chunks = new Chunk[(boards + BOARDS_PER_TASK - 1) / BOARDS_PER_TASK];
+    for (int c = 0; c < chunks.length; c++)
+      chunks[c] = new Chunk(c * BOARDS_PER_TASK, Math.min(boards, (c + 1) * BOARDS_PER_TASK));
+    reset();
+  }
+
+  /** Default boards, episodes as long as cfg's timer at one command per second. */
+  public BatchEnv(int boards, ScoreConfig cfg, long seed)
+  {
+    this(boards, GameEngine.DEFAULT_GRID_W, GameEngine.DEFAULT_GRID_H, cfg,
+         Math.max(1, cfg.timeLimitSeconds), 2, seed);
+  }
+
+  public int size()          { return boards; }
+  public int obsSize()       { return obsSize; }
+  public int getMaxCommands() { return maxCommands; }
+
+  /** Observations, obsSize() ints per board; rewritten by every step / reset. */
+  public int[] observations() { return obs; }
+  /** Score change of each board in the last step (end bonus included). */
+  public float[] rewards()    { return reward; }
+  /** True where the last step ended an episode. */
+  public boolean[] dones()    { return done; }
+  /** Final score of each board's last finished episode. */
+  public int[] finalScores()  { return finalScore; }
+
+  public int getScore(int board)   { return score[board]; }
+  public int getSteps(int board)   { return steps[board]; }
+  public int getEpisode(int board) { return episode[board]; }
+
+  /** Start every board on a new board (next episode). */
+  public void reset()
+  {
+    actions = null;
+    run();
+  }
+
+  /** Apply actions[i] (a Command ordinal, negative for none) to board i. */
+  public void step(int[] actions)
+  {
+    if (actions.length < boards) throw new IllegalArgumentException(actions.length + " actions for " + boards + " boards");
+    this.actions = actions;
+    run();
+  }
+
+  private void run()
+  {
+    if (chunks.length == 1)
+    {
+      chunks[0].compute();
+      return;
+    }
+    for (Chunk c : chunks) c.reinitialize();
+    ForkJoinTask.invokeAll(chunks);
+  }
+
+  /** One slice of boards; reused by every step, with its own board generator. */
+  private final class Chunk extends RecursiveAction
+  {
+    private static final long serialVersionUID = 141L;
+    private final int lo, hi;
+    private final GameEngine gen;
+
+    Chunk(int lo, int hi)
+    {
+      this.lo = lo;
+      this.hi = hi;
+      gen = new GameEngine(gridW, gridH);
+      gen.setQuiet(true);
+    }
+
+    @Override
+    protected void compute()
+    {
+      int[] a = actions;
+      for (int i = lo; i < hi; i++)
+      {
+        if (a == null)
+        {
+          newBoard(i, gen);
+          reward[i] = 0;
+          done[i] = false;
+        }
+        else stepBoard(i, a[i], gen);
+        observe(i);
+      }
+    }
+  }
+
+  /* ---------- rules (GameSession.execute over the flat arrays) ---------- */
+
+  private void stepBoard(int i, int action, GameEngine gen)
+  {
+    int scoreBefore = score[i];
+    int stepsBefore = steps[i];
+    boolean quit = false;
+
+    if (action >= 0) switch (COMMANDS[action]) {
+      case RIGHT: step(i, 1, 0);  break;
+      case LEFT:  step(i, -1, 0); break;
+      case UP:    step(i, 0, -1); break;
+      case DOWN:  step(i, 0, 1);  break;
+
+      case JUMP_RIGHT: jump(i, 1, 0);  break;
+      case JUMP_LEFT:  jump(i, -1, 0); break;
+      case JUMP_UP:    jump(i, 0, -1); break;
+      case JUMP_DOWN:  jump(i, 0, 1);  break;
+
+      case PICKUP: {
+        int prize = take(i, cell(i), ItemGrid.PRIZE) ? cfg.prizeVal : -cfg.prizeVal;
+        if (prize > 0 && doubleCoins[i]) prize += prize;
+        score[i] += prize;
+        powerup(i);
+        break;
+      }
+      case DETRAP: {
+        boolean disarmed = false;
+        for (int[] off : DISARM_OFFSETS)
+          if (take(i, cellAt(col[i] + off[0], row[i] + off[1]), ItemGrid.TRAP)) { disarmed = true; break; }
+        score[i] += disarmed ? cfg.trapVal : -cfg.trapVal;
+        break;
+      }
+      case REPLAY: {
+        score[i] += endDelta(i);
+        System.arraycopy(boardItems, i * itemWords, items, i * itemWords, itemWords);
+        col[i] = row[i] = steps[i] = 0;
+        doubleCoins[i] = false;
+        doubleCoinsLeft[i] = 0;
+        break;
+      }
+      case QUIT: quit = true; break;
+      default: break;          // trap scans and help change nothing
+    }
+
+    powerup(i);
+    int stepDelta = steps[i] - stepsBefore;
+    if (doubleCoins[i] && stepDelta > 0)
+    {
+      doubleCoinsLeft[i] -= stepDelta;
+      if (doubleCoinsLeft[i] <= 0)
+      {
+        doubleCoins[i] = false;
+        doubleCoinsLeft[i] = 0;
+      }
+    }
+
+    if (quit || ++commands[i] >= maxCommands)
+    {
+      score[i] += endDelta(i);
+      reward[i] = score[i] - scoreBefore;
+      finalScore[i] = score[i];
+      done[i] = true;
+      newBoard(i, gen);
+    }
+    else
+    {
+      reward[i] = score[i] - scoreBefore;
+      done[i] = false;
+    }
+  }
+
+  private void step(int i, int dx, int dy)
+  {
+    int delta = move(i, dx, dy);
+    score[i] += delta;
+    if (delta == 0) springTrap(i);
+  }
+
+  /** Two steps; the second only if the first succeeded. Only the landing tile can spring a trap. */
+  private void jump(int i, int dx, int dy)
+  {
+    int d1 = move(i, dx, dy);
+    score[i] += d1;
+    if (d1 == 0)
+    {
+      int d2 = move(i, dx, dy);
+      score[i] += d2;
+      if (d2 == 0) springTrap(i);
+    }
+  }
+
+  private int move(int i, int dx, int dy)
+  {
+    steps[i]++;
+    int c = col[i], r = row[i];
+    int nc = c + dx, nr = r + dy;
+    if (nc < 0 || nc >= gridW || nr < 0 || nr >= gridH) return -cfg.offGridVal;
+
+    int base = i * wallWords;
+    boolean wall = dx > 0 ? bit(vertical, base, r*gridW + c)
+                 : dx < 0 ? bit(vertical, base, r*gridW + c - 1)
+                 : dy > 0 ? bit(horizontal, base, r*gridW + c)
+                 :          bit(horizontal, base, (r-1)*gridW + c);
+    if (wall) return -cfg.hitWallVal;
+
+    col[i] = nc;
+    row[i] = nr;
+    return 0;
+  }
+
+  private void springTrap(int i)
+  {
+    if (take(i, cell(i), ItemGrid.TRAP)) score[i] -= cfg.trapPenalty;
+  }
+
+  private void powerup(int i)
+  {
+    if (!take(i, cell(i), ItemGrid.POWERUP)) return;
+    doubleCoins[i] = true;
+    doubleCoinsLeft[i] = cfg.powerupSteps;
+  }
+
+  private int endDelta(int i)
+  {
+    return col[i] >= gridW - 1 ? cfg.endVal : -cfg.endVal;
+  }
+
+  /* ---------- flat board access ---------- */
+
+  private int cell(int i) { return row[i] * gridW + col[i]; }
+
+  private int cellAt(int w, int h)
+  {
+    if (w < 0 || h < 0 || w >= gridW || h >= gridH) return -1;
+    return h * gridW + w;
+  }
+
+  private static boolean bit(long[] words, int base, int cell)
+  {
+    return (words[base + (cell >>> 6)] & (1L << cell)) != 0;
+  }
+
+  private int item(int i, int cell)
+  {
+    return (int) (items[i * itemWords + (cell >>> 5)] >>> ((cell & 31) << 1)) & 3;
+  }
+
+  /** Remove the item of this kind from the cell; false if there is none. */
+  private boolean take(int i, int cell, int kind)
+  {
+    if (cell < 0 || item(i, cell) != kind) return false;
+    items[i * itemWords + (cell >>> 5)] &= ~(3L << ((cell & 31) << 1));
+    return true;
+  }
+
+  private void newBoard(int i, GameEngine gen)
+  {
+    gen.setSeed(Seeds.mix(seed, ((long) i << 32) | (episode[i]++ & 0xffffffffL)));
+    gen.createBoard();
+    gen.getWalls().copyWordsTo(vertical, horizontal, i * wallWords);
+    gen.getBoardItems().copyWordsTo(boardItems, i * itemWords);
+    System.arraycopy(boardItems, i * itemWords, items, i * itemWords, itemWords);
+    col[i] = row[i] = steps[i] = score[i] = commands[i] = 0;
+    doubleCoins[i] = false;
+    doubleCoinsLeft[i] = 0;
+  }
+
+  private void observe(int i)
+  {
+    int o = i * obsSize;
+    int c = col[i], r = row[i];
+    obs[o++] = c;
+    obs[o++] = r;
+    obs[o++] = score[i];
+    obs[o++] = doubleCoins[i] ? doubleCoinsLeft[i] : 0;
+    obs[o++] = maxCommands - commands[i];
+
+    int base = i * wallWords;
+    for (int h = r - radius; h <= r + radius; h++)
+      for (int w = c - radius; w <= c + radius; w++)
+      {
+        if (w < 0 || h < 0 || w >= gridW || h >= gridH) { obs[o++] = OFF_GRID; continue; }
+        int cell = h * gridW + w;
+        obs[o++] = item(i, cell)
+                 | (bit(vertical, base, cell)   ? WALL_RIGHT  : 0)
+                 | (bit(horizontal, base, cell) ? WALL_BOTTOM : 0);
+      }
+  }
+
+  /* ---------- command line benchmark ---------- */
+
+  public static void main(String[] args)
+  {
+    int boards = 4096, stepCount = 2000, radius = 2;
+    int gridW = GameEngine.DEFAULT_GRID_W, gridH = GameEngine.DEFAULT_GRID_H;
+    long seed = 1;
+    for (String a : args)
+    {
+      int eq = a.indexOf('=');
+      if (eq < 0) throw new IllegalArgumentException("expected key=value, got " + a);
+      String key = a.substring(0, eq), val = a.substring(eq + 1);
+      switch (key) {
+        case "boards": boards = Integer.parseInt(val); break;
+        case "steps":  stepCount = Integer.parseInt(val); break;
+        case "radius": radius = Integer.parseInt(val); break;
+        case "seed":   seed = Long.parseLong(val); break;
+        case "size": {
+          String[] wh = val.split("x");
+          gridW = Integer.parseInt(wh[0]);
+          gridH = Integer.parseInt(wh[1]);
+          break;
+        }
+        default: throw new IllegalArgumentException("unknown option " + key);
+      }
+    }
+
+    ScoreConfig cfg = new ScoreConfig();
+    BatchEnv env = new BatchEnv(boards, gridW, gridH, cfg, Math.max(1, cfg.timeLimitSeconds), radius, seed);
+
+    // a few pre-drawn action sets, cycled, so the timing is the environment's alone
+    SplittableRandom rand = new SplittableRandom(seed);
+    int[][] actionSets = new int[64][boards];
+    for (int[] set : actionSets)
+      for (int i = 0; i < boards; i++) set[i] = rand.nextInt(COMMANDS.length - 1);   // all but QUIT
+
+    long episodes = 0, scoreSum = 0;
+    long t0 = System.nanoTime();
+    for (int s = 0; s < stepCount; s++)
+    {
+      env.step(actionSets[s & 63]);
+      boolean[] d = env.dones();
+      for (int i = 0; i < boards; i++)
+        if (d[i]) { episodes++; scoreSum += env.finalScores()[i]; }
+    }
+    double sec = (System.nanoTime() - t0) / 1e9;
+    System.out.printf("%d boards x %d steps in %.2f s: %.2f M steps/s, %d episodes, mean score %.2f%n",
+                      boards, stepCount, sec, (double) boards * stepCount / sec / 1e6,
+                      episodes, episodes == 0 ? 0.0 : (double) scoreSum / episodes);
+  }
+}
@@ -0,0 +1,11 @@
+/**
+ * Told by GameEngine what a view needs to redraw
+ * - cellChanged: the player left/entered the cell, or an item there was removed
+ * - boardChanged: anything may have changed (new board, replay)
+ */
+public interface BoardChangeListener
+{
+  void cellChanged(int w, int h);
+
+  void boardChanged();
+}
@@ -0,0 +1,288 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Level pack: many boards in one compact binary file, memory-mapped to load
+ *
+ * Layout (little-endian):
+ *   header  int magic "ERB1", short version, short 0, int level count, long index offset
+ *   level   int gridW, gridH, prizes, traps, powerups
+ *           long[words] vertical wall bits, long[words] horizontal wall bits (WallEdges words)
+ *           int[] prize cells, trap cells, powerup cells (row-major)
+ *   index   long[count] level offsets
+ *
+ * An 8x5 level is 5*4 + 2*8 + 4 bytes per item; loading one is two bulk long
+ * copies plus one ItemGrid.set per item, straight from the mapping.
+ * open() checks every level once (a size GameEngine accepts, ranges against
+ * the file and the grid, no item cell twice, no wall bits past the grid), so
+ * fill() trusts the bytes.
+ *
+ * Usage: java BoardPack generate pack.erb [count=1000] [size=8x5] [seed=1]
+ *        java BoardPack info pack.erb     (loads every level, reports time per level)
+ */
+public class BoardPack implements AutoCloseable
+{
+  public static final int MAGIC = 0x31425245;      // "ERB1" little-endian
+  public static final short VERSION = 1;
+  private static final int HEADER_BYTES = 4 + 2 + 2 + 4 + 8;
+
+  private final ByteBuffer map;
+  private final int count;
+  private final int indexOffset;
+
+  private BoardPack(ByteBuffer map) throws IOException
+  {
+    this.map = map.order(ByteOrder.LITTLE_ENDIAN);
+    if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC)
+      throw new IOException("not a board pack");
+    if (map.getShort(4) != VERSION)
+      throw new IOException("unsupported board pack version " + map.getShort(4));
+    count = map.getInt(8);
+    long index = map.getLong(12);
+    if (count < 0 || index < HEADER_BYTES || index + 8L*count > map.capacity())
+      throw new IOException("board pack index out of range (truncated file?)");
+    indexOffset = (int) index;
+
+    BitSet seen = new BitSet();
+    for (int i = 0; i < count; i++) check(i, seen);
+  }
+
+  /** Validate level i, so a truncated or hand-edited pack fails here and not mid-game. */
+  private void check(int i, BitSet seen) throws IOException
+  {
+    long at = map.getLong(indexOffset + 8*i);
+    if (at < HEADER_BYTES || at + 20 > indexOffset)
+      throw new IOException("level " + i + ": offset " + at + " out of range");
+    int p = (int) at;
+    int w = map.getInt(p), h = map.getInt(p + 4);
+    if (w < 2 || h < 1 || w > GameEngine.MAX_GRID_SIZE || h > GameEngine.MAX_GRID_SIZE)   // what GameEngine accepts
+      throw new IOException("level " + i + ": size " + w + "x" + h + " is not 2x1 to "
+                            + GameEngine.MAX_GRID_SIZE + "x" + GameEngine.MAX_GRID_SIZE);
+    long prizes = map.getInt(p + 8), traps = map.getInt(p + 12), powerups = map.getInt(p + 16);
+    long items = prizes + traps + powerups;
+    if (prizes < 0 || traps < 0 || powerups < 0 || items > (long) w * h)
+      throw new IOException("level " + i + ": bad item counts " + prizes + "/" + traps + "/" + powerups);
+    int words = wallWords(w, h);
+    if (at + 20 + 16L*words + 4*items > indexOffset)
+      throw new IOException("level " + i + " runs past the end of the levels (truncated file?)");
+
+    int spare = (int) (((long) words << 6) - (long) w * h);   // padding bits in each last wall word must be clear
+    long pad = spare == 0 ? 0 : -1L << (64 - spare);
+    int walls = p + 20;
+    if ((map.getLong(walls + 8*(words - 1)) & pad) != 0 || (map.getLong(walls + 8*(2*words - 1)) & pad) != 0)
+      throw new IOException("level " + i + ": wall bits outside " + w + "x" + h);
+
+    int cells = walls + 16*words;
+    for (int k = 0; k < items; k++)
+    {
+      int cell = map.getInt(cells + 4*k);
+      if (cell < 0 || cell >= w*h)
+        throw new IOException("level " + i + ": item cell " + cell + " outside " + w + "x" + h);
+      if (seen.get(cell))
+        throw new IOException("level " + i + ": two items on cell " + cell);
+      seen.set(cell);
+    }
+    for (int k = 0; k < items; k++) seen.clear(map.getInt(cells + 4*k));
+  }
+
+  /** Map a pack read-only (packs are limited to 2 GB, the size of one mapping). */
+  public static BoardPack open(Path file) throws IOException
+  {
+    try (FileChannel ch = FileChannel.open(file))
+    {
+      if (ch.size() > Integer.MAX_VALUE) throw new IOException(file + " is over 2 GB");
+      MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+      return new BoardPack(map);
+    }
+  }
+
+  public int size() { return count; }
+
+  /** Level i as a BoardSource over the mapping (no copy until fill). */
+  public BoardSource level(int i)
+  {
+    if (i < 0 || i >= count) throw new IndexOutOfBoundsException("level " + i + " of " + count);
+    return new Level((int) map.getLong(indexOffset + 8*i));
+  }
+
+  @Override
+  public void close() {}     // the mapping is released when unreachable
+
+  /** One level; reads straight from the shared mapping. */
+  private final class Level implements BoardSource
+  {
+    private final int at;
+
+    Level(int at) { this.at = at; }
+
+    public int gridW() { return map.getInt(at); }
+    public int gridH() { return map.getInt(at + 4); }
+
+    public void fill(WallEdges walls, ItemGrid items)
+    {
+      int w = gridW(), h = gridH();
+      int prizes = map.getInt(at + 8), traps = map.getInt(at + 12), powerups = map.getInt(at + 16);
+      int words = wallWords(w, h);
+      int p = at + 20;
+      walls.load(map.slice(p, 8*words).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer(),
+                 map.slice(p + 8*words, 8*words).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+      p += 16*words;
+      IntBuffer cells = map.slice(p, 4*(prizes + traps + powerups)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+      for (int i = 0; i < prizes + traps + powerups; i++)
+        items.set(cells.get(i), i < prizes ? ItemGrid.PRIZE : i < prizes + traps ? ItemGrid.TRAP : ItemGrid.POWERUP);
+    }
+  }
+
+  private static int wallWords(int w, int h) { return (w * h + 63) >>> 6; }
+
+  /* ---------- writing ---------- */
+
+  /** Appends levels to a new pack file; close() writes the index. */
+  public static class Writer implements AutoCloseable
+  {
+    private final FileChannel ch;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private long[] offsets = new long[1024];
+    private int count;
+    private long position = HEADER_BYTES;
+
+    public Writer(Path file) throws IOException
+    {
+      ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+      ch.position(HEADER_BYTES);
+    }
+
+    /** Save the engine's current board (as generated, not as played). */
+    public void add(GameEngine engine) throws IOException
+    {
+      int w = engine.getGridW(), h = engine.getGridH();
+      ItemGrid items = engine.getBoardItems();
+
+      if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+      offsets[count++] = position;
+
+      putInt(w); putInt(h);
+      putInt(items.count(ItemGrid.PRIZE)); putInt(items.count(ItemGrid.TRAP)); putInt(items.count(ItemGrid.POWERUP));
+      for (long word : engine.getWalls().verticalWords())   putLong(word);
+      for (long word : engine.getWalls().horizontalWords()) putLong(word);
+      for (int kind = ItemGrid.PRIZE; kind <= ItemGrid.POWERUP; kind++)
+        if (items.isSealed())
+        {
+          for (int s = items.nextLive(0); s >= 0; s = items.nextLive(s + 1))
+            if (items.kindOf(s) == kind) putInt(items.cellOf(s));
+        }
+        else
+        {
+          for (int cell = 0; cell < w*h; cell++)
+            if (items.get(cell) == kind) putInt(cell);
+        }
+    }
+
+    private void putInt(int v) throws IOException   { room(4); buf.putInt(v);  position += 4; }
+    private void putLong(long v) throws IOException { room(8); buf.putLong(v); position += 8; }
+
+    private void room(int n) throws IOException
+    {
+      if (buf.remaining() < n) drain();
+    }
+
+    private void drain() throws IOException
+    {
+      buf.flip();
+      while (buf.hasRemaining()) ch.write(buf);
+      buf.clear();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      long index = position;
+      for (int i = 0; i < count; i++) putLong(offsets[i]);
+      drain();
+
+      buf.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(count).putLong(index).flip();
+      ch.write(buf, 0);
+      ch.close();
+    }
+  }
+
+  /* ---------- command line ---------- */
+
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 2)
+    {
+      System.err.println("usage: java BoardPack generate pack.erb [count=1000] [size=8x5] [seed=1]");
+      System.err.println("       java BoardPack info pack.erb");
+      System.exit(2);
+    }
+    Path file = Paths.get(args[1]);
+    if (args[0].equals("generate"))
+    {
+      int count = 1000, gridW = GameEngine.DEFAULT_GRID_W, gridH = GameEngine.DEFAULT_GRID_H;
+      long seed = 1;
+      for (int i = 2; i < args.length; i++)
+      {
+        String a = args[i];
+        int eq = a.indexOf('=');
+        if (eq < 0) throw new IllegalArgumentException("expected key=value, got " + a);
+        String key = a.substring(0, eq), val = a.substring(eq + 1);
+        switch (key) {
+          case "count": count = Integer.parseInt(val); break;
+          case "seed":  seed = Long.parseLong(val); break;
+          case "size": {
+            String[] wh = val.split("x");
+            gridW = Integer.parseInt(wh[0]);
+            gridH = Integer.parseInt(wh[1]);
+            break;
+          }
+          default: throw new IllegalArgumentException("unknown option " + key);
+        }
+      }
+      GameEngine game = new GameEngine(gridW, gridH);
+      game.setQuiet(true);
+      game.setSeed(seed);
+      try (Writer out = new Writer(file))
+      {
+        for (int i = 0; i < count; i++)
+        {
+          game.createBoard();
+          out.add(game);
+        }
+      }
+      System.out.println("wrote " + count + " " + gridW + "x" + gridH + " levels to " + file);
+    }
+    else if (args[0].equals("info"))
+    {
+      long t0 = System.nanoTime();
+      try (BoardPack pack = open(file))
+      {
+        GameEngine game = null;
+        for (int i = 0; i < pack.size(); i++)
+        {
+          BoardSource level = pack.level(i);
+          if (game == null || game.getGridW() != level.gridW() || game.getGridH() != level.gridH())
+          {
+            game = new GameEngine(level.gridW(), level.gridH());
+            game.setQuiet(true);
+          }
+          game.createBoard(level);
+        }
+        double ms = (System.nanoTime() - t0) / 1e6;
+        System.out.printf("%d levels loaded in %.1f ms (%.2f us per level)%n",
+                          pack.size(), ms, pack.size() == 0 ? 0 : ms * 1000 / pack.size());
+      }
+    }
+    else throw new IllegalArgumentException("unknown action " + args[0]);
+  }
+}
@@ -0,0 +1,223 @@
+import java.nio.LongBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boards generated ahead of time, so a new game does not wait for createBoard
+ * - One background worker keeps up to `capacity` boards ready, each made (and
+ *   checked solvable) by GameEngine.createBoard on the worker's own engine
+ * - newGame() copies a ready board into a player's engine: two wall-word copies
+ *   and one set per item, however long generation took
+ * - An empty pool makes newGame() wait for the worker (back-pressure), so a
+ *   burst larger than the pool is paced rather than piling up generators
+ * - Every board keeps its seed, so journals and leaderboards can still name it
+ *
+ * Usage: java BoardPool [size=8x5] [pool=256] [burst=2000] [clients=8]
+ *   times a burst of new games started from the pool against createBoard inline
+ */
+public class BoardPool implements AutoCloseable
+{
+  public static final int DEFAULT_CAPACITY = 256;
+
+  /** One pre-generated board; fills an engine of the same size. */
+  public static final class Board implements BoardSource
+  {
+    public final long seed;
+    private final int gridW, gridH;
+    private final long[] vertical, horizontal;
+    private final int[] cells;            // items, from the generator's sealed index
+    private final byte[] kinds;
+
+    Board(GameEngine engine, long seed)
+    {
+      this.seed = seed;
+      gridW = engine.getGridW();
+      gridH = engine.getGridH();
+      vertical = engine.getWalls().verticalWords();
+      horizontal = engine.getWalls().horizontalWords();
+      ItemGrid items = engine.getBoardItems();
+      cells = new int[items.count()];
+      kinds = new byte[cells.length];
+      int n = 0;
+      for (int s = items.nextLive(0); s >= 0; s = items.nextLive(s + 1))
+      {
+        cells[n] = items.cellOf(s);
+        kinds[n++] = (byte) items.kindOf(s);
+      }
+    }
+
+    public int gridW() { return gridW; }
+    public int gridH() { return gridH; }
+
+    public void fill(WallEdges walls, ItemGrid items)
+    {
+      walls.load(LongBuffer.wrap(vertical), LongBuffer.wrap(horizontal));
+      for (int i = 0; i < cells.length; i++) items.set(cells[i], kinds[i]);
+    }
+  }
+
+  private final ArrayBlockingQueue<Board> ready;
+  private final GameEngine generator;       // worker thread only
+  private final Thread worker;
+  private final LongAdder generated = new LongAdder();
+  private final LongAdder waits = new LongAdder();
+  private volatile boolean closed;
+  private volatile RuntimeException failure;
+
+  /** Pool of boards for gridW x gridH engines with the default item and wall counts; starts filling at once. */
+  public BoardPool(int gridW, int gridH, int capacity)
+  {
+    if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+    ready = new ArrayBlockingQueue<>(capacity);
+    generator = new GameEngine(gridW, gridH);
+    generator.setQuiet(true);
+    worker = new Thread(this::refill, "EscapeRoom-board-pool");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Put a ready board on game (player back on the start cell), waiting for
+   * one if the pool is empty.
+   * @return the board's seed
+   * @throws IllegalStateException if the pool is closed or its worker failed
+   */
+  public long newGame(GameEngine game) throws InterruptedException
+  {
+    Board board = ready.poll();
+    if (board == null)
+    {
+      waits.increment();
+      while ((board = ready.poll(100, TimeUnit.MILLISECONDS)) == null)
+      {
+        if (failure != null) throw new IllegalStateException("board generation failed", failure);
+        if (closed) throw new IllegalStateException("board pool closed");
+      }
+    }
+    game.createBoard(board);
+    return board.seed;
+  }
+
+  /** Boards ready now. */
+  public int available() { return ready.size(); }
+
+  /** Boards generated so far. */
+  public long generated() { return generated.sum(); }
+
+  /** newGame() calls that found the pool empty and had to wait. */
+  public long waits() { return waits.sum(); }
+
+  private void refill()
+  {
+    try
+    {
+      while (!closed)
+      {
+        long seed = ThreadLocalRandom.current().nextLong();
+        generator.setSeed(seed);
+        generator.createBoard();
+        ready.put(new Board(generator, seed));       // blocks while the pool is full
+        generated.increment();
+      }
+    }
+    catch (InterruptedException e)
+    {
+      // closed
+    }
+    catch (RuntimeException e)
+    {
+      failure = e;
+    }
+  }
+
+  /** Stop the worker; boards already taken stay valid. */
+  @Override
+  public void close()
+  {
+    closed = true;
+    worker.interrupt();
+  }
+
+  /* ---------- burst benchmark ---------- */
+
+  public static void main(String[] args) throws InterruptedException
+  {
+    int gridW = GameEngine.DEFAULT_GRID_W, gridH = GameEngine.DEFAULT_GRID_H;
+    int capacity = DEFAULT_CAPACITY, burst = 2000, clients = 8;
+    for (String a : args)
+    {
+      int eq = a.indexOf('=');
+      if (eq < 0) throw new IllegalArgumentException("expected key=value, got " + a);
+      String key = a.substring(0, eq), val = a.substring(eq + 1);
+      switch (key) {
+        case "pool":    capacity = Integer.parseInt(val); break;
+        case "burst":   burst = Integer.parseInt(val); break;
+        case "clients": clients = Integer.parseInt(val); break;
+        case "size": {
+          String[] wh = val.split("x");
+          gridW = Integer.parseInt(wh[0]);
+          gridH = Integer.parseInt(wh[1]);
+          break;
+        }
+        default: throw new IllegalArgumentException("unknown option " + key);
+      }
+    }
+
+    BoardPool pool = new BoardPool(gridW, gridH, capacity);
+    while (pool.available() < capacity) Thread.sleep(10);     // a warm pool, as between bursts
+
+    LatencyHistogram pooled = new LatencyHistogram("pooled start");
+    LatencyHistogram inline = new LatencyHistogram("inline start");
+    burst(gridW, gridH, burst, clients, pooled, game -> pool.newGame(game));
+    burst(gridW, gridH, burst, clients, inline, game -> {
+      game.setSeed(ThreadLocalRandom.current().nextLong());
+      game.createBoard();
+    });
+    System.out.println(gridW + "x" + gridH + ", pool of " + capacity + ", burst of " + burst
+                       + " games from " + clients + " clients");
+    System.out.println(pooled.summary() + "  (" + pool.waits() + " waited for the worker)");
+    System.out.println(inline.summary());
+    pool.close();
+  }
+
+  private interface Start
+  {
+    void start(GameEngine game) throws InterruptedException;
+  }
+
+  /** burst new games split over clients threads, all released at once; start latency into h. */
+  private static void burst(int gridW, int gridH, int burst, int clients, LatencyHistogram h, Start start)
+      throws InterruptedException
+  {
+    CountDownLatch go = new CountDownLatch(1);
+    Thread[] threads = new Thread[clients];
+    for (int c = 0; c < clients; c++)
+    {
+      int games = burst / clients + (c < burst % clients ? 1 : 0);
+      threads[c] = new Thread(() -> {
+        try
+        {
+          go.await();
+          for (int i = 0; i < games; i++)
+          {
+            long t0 = System.nanoTime();
+            GameEngine game = new GameEngine(gridW, gridH);
+            game.setQuiet(true);
+            start.start(game);
+            h.recordSince(t0);
+          }
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+      });
+      threads[c].start();
+    }
+    go.countDown();
+    for (Thread t : threads) t.join();
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Immutable copy of what a view shows of a GameEngine
+ * - Player cell, steps and the items + walls of one viewport window
+ * - Built on the thread that owns the engine (the game loop), read on the EDT,
+ *   so painting never touches live engine state
+ * - Only the window is copied, so a snapshot is the same size on any board
+ */
+public final class BoardSnapshot
+{
+  public static final int WALL_RIGHT  = 1;    // vertical wall on the cell's right edge
+  public static final int WALL_BOTTOM = 2;    // horizontal wall on the cell's bottom edge
+
+  public final int gridW;
+  public final int gridH;
+  public final int playerCol;
+  public final int playerRow;
+  public final int steps;
+  public final int wallVersion;     // WallEdges.getVersion() when taken
+
+  // window, in board cells
+  public final int camCol;
+  public final int camRow;
+  public final int cols;
+  public final int rows;
+
+  private final byte[] items;       // ItemGrid kinds, row-major over the window
+  private final byte[] walls;       // WALL_RIGHT | WALL_BOTTOM
+
+  private BoardSnapshot(GameEngine engine, int camCol, int camRow, int cols, int rows)
+  {
+    gridW = engine.getGridW();
+    gridH = engine.getGridH();
+    playerCol = engine.getPlayerCol();
+    playerRow = engine.getPlayerRow();
+    steps = engine.getSteps();
+    this.camCol = camCol;
+    this.camRow = camRow;
+    this.cols = cols;
+    this.rows = rows;
+
+    WallEdges wallEdges = engine.getWalls();
+    wallVersion = wallEdges.getVersion();
+    items = new byte[cols * rows];
+    walls = new byte[cols * rows];
+    for (int h = 0, i = 0; h < rows; h++)
+      for (int w = 0; w < cols; w++, i++)
+      {
+        items[i] = (byte) engine.getItem(camCol + w, camRow + h);
+        int edges = 0;
+        if (wallEdges.hasVertical(camCol + w, camRow + h))   edges |= WALL_RIGHT;
+        if (wallEdges.hasHorizontal(camCol + w, camRow + h)) edges |= WALL_BOTTOM;
+        walls[i] = (byte) edges;
+      }
+  }
+
+  /**
+   * Snapshot of a cols x rows window kept centred on the player where the
+   * board allows. Call only from the thread that owns the engine.
+   */
+  public static BoardSnapshot following(GameEngine engine, int cols, int rows)
+  {
+    cols = Math.min(cols, engine.getGridW());
+    rows = Math.min(rows, engine.getGridH());
+    int c = Math.max(0, Math.min(engine.getPlayerCol() - cols/2, engine.getGridW() - cols));
+    int r = Math.max(0, Math.min(engine.getPlayerRow() - rows/2, engine.getGridH() - rows));
+    return new BoardSnapshot(engine, c, r, cols, rows);
+  }
+
+  /** Item kind at window cell (w,h), 0-based from camCol/camRow. */
+  public int item(int w, int h)  { return items[h*cols + w]; }
+
+  /** WALL_RIGHT / WALL_BOTTOM bits at window cell (w,h). */
+  public int walls(int w, int h) { return walls[h*cols + w]; }
+
+  /** True if the static layer (grid + walls) drawn for other is still valid for this one. */
+  public boolean sameStatic(BoardSnapshot other)
+  {
+    return other != null && other.camCol == camCol && other.camRow == camRow
+        && other.cols == cols && other.rows == rows && other.wallVersion == wallVersion;
+  }
+}
@@ -0,0 +1,718 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Best score a board allows within a command budget (level QA)
+ * - Exact search over (player cell, items taken, powerup charge, commands left),
+ *   scored by the GameSession rules: trap penalty on landing, detrap bonus,
+ *   doubled prizes while double coins last, end bonus / penalty at the finish
+ * - Depth-first branch-and-bound: an upper bound (end bonus plus the best
+ *   prizes and detraps that fit in the commands left) cuts hopeless branches
+ *   against the best score found so far, shared by all workers
+ * - Memoized in a fixed-size table of primitive longs (lockless, two slots per
+ *   bucket, shallower entries evicted first), so memory stays bounded on any board
+ * - Root moves are searched in parallel on the common fork/join pool
+ * - Only items within reach of the budget are tracked; taken items are keyed by
+ *   a 128-bit Zobrist hash, so large boards need no per-cell state
+ * REPLAY is not searched: it restores the board, so with a budget the best line
+ *   would just farm replays; the result is the best single run. Moves that only
+ *   cost points (into walls, pickup with no prize, ...) are skipped as never better
+ *   than finishing.
+ *
+ * Usage: java BoardSolver [size=8x5] [seed=1] [boards=1] [budget=90] [cacheMB=64]
+ */
+public class BoardSolver
+{
+  /** Most commands a search may look ahead (packed into the cache key). */
+  public static final int MAX_BUDGET = (1 << 20) - 1;
+
+  // candidate actions, most promising first
+  private static final Command[] ACTIONS = {
+    Command.PICKUP, Command.DETRAP, Command.FIND_TRAP_RIGHT,    // the scan is a free wait
+    Command.JUMP_RIGHT, Command.RIGHT, Command.DOWN, Command.UP,
+    Command.JUMP_DOWN, Command.JUMP_UP, Command.LEFT, Command.JUMP_LEFT
+  };
+  private static final int[][] DISARM_OFFSETS = { {0,0}, {1,0}, {-1,0}, {0,1}, {0,-1} };
+  private static final int MOVE_INTS = 7;
+  private static final long BACK_KEY = 0x9E3779B97F4A7C15L;
+  private static final int UNKNOWN = Integer.MIN_VALUE;
+  private static final int MAX_DISTANCE_INTS = 1 << 22;
+  private static final int SCAN_ITEMS = 64;    // up to this many items the bound checks each one's distance
+  private static final long SALT_A = 0x5EED5A17A1L, SALT_B = 0x2B0A4D50C7L;
+
+  private final WallEdges walls;
+  private final int gridW, gridH;
+  private final ScoreConfig cfg;
+  private final int budget;
+  private final int[] itemCells;        // items within reach, ascending cell
+  private final byte[] itemKinds;
+  private final int[] itemDistance;     // [item * cells + cell] steps, or null
+  private final int[] exitDistance;     // steps to the exit column, or null
+  private final Cache cache;
+  private final AtomicInteger best = new AtomicInteger();
+
+  /** Result of one solve. */
+  public static final class Result
+  {
+    public final int score;
+    public final Command[] line;      // a best line (ends with QUIT if it finishes early)
+    public final long nodes, cacheHits, evictions, nanos;
+
+    Result(int score, Command[] line, long nodes, long cacheHits, long evictions, long nanos)
+    {
+      this.score = score;
+      this.line = line;
+      this.nodes = nodes;
+      this.cacheHits = cacheHits;
+      this.evictions = evictions;
+      this.nanos = nanos;
+    }
+  }
+
+  /**
+   * Solver for the engine's board as created (the engine must not change while solving).
+   * @param cacheEntries memo table size, rounded up to a power of two (24 bytes each)
+   */
+  public BoardSolver(GameEngine engine, ScoreConfig cfg, int budget, int cacheEntries)
+  {
+    if (budget < 0 || budget > MAX_BUDGET) throw new IllegalArgumentException("budget must be 0.." + MAX_BUDGET);
+    if (cfg.powerupSteps >= 1 << 16) throw new IllegalArgumentException("powerupSteps too large");
+    this.walls = engine.getWalls();
+    this.gridW = engine.getGridW();
+    this.gridH = engine.getGridH();
+    this.cfg = cfg.copy();
+    this.budget = budget;
+    this.cache = new Cache(cacheEntries);
+
+    // a command moves at most two cells and detrap reaches one further
+    ItemGrid items = engine.getBoardItems();
+    long reach = 2L * budget + 1;
+    int rows = (int) Math.min(gridH, reach + 1), cols = (int) Math.min(gridW, reach + 1);
+    int[] cells = new int[64];
+    byte[] kinds = new byte[64];
+    int n = 0;
+    for (int h = 0; h < rows; h++)
+      for (int w = 0; w < cols && w + h <= reach; w++)
+      {
+        int kind = items.get(w, h);
+        if (kind == ItemGrid.NONE) continue;
+        if (n == cells.length)
+        {
+          cells = Arrays.copyOf(cells, 2*n);
+          kinds = Arrays.copyOf(kinds, 2*n);
+        }
+        cells[n] = h*gridW + w;
+        kinds[n++] = (byte) kind;
+      }
+    // row-major scan is already ascending
+    itemCells = Arrays.copyOf(cells, n);
+    itemKinds = Arrays.copyOf(kinds, n);
+
+    // walking distance to where each item can be taken (detrap works from next
+    // door, even through a wall), when that fits; Manhattan otherwise
+    long size = (long) n * gridW * gridH;
+    if (n <= SCAN_ITEMS && size <= MAX_DISTANCE_INTS)
+    {
+      itemDistance = new int[(int) size];
+      exitDistance = new int[gridW * gridH];
+      for (int cell = 0; cell < exitDistance.length; cell++)
+        exitDistance[cell] = engine.getPathfinder().distanceToExit(cell % gridW, cell / gridW);
+      int[] field = new int[gridW * gridH];
+      int[] spots = new int[DISARM_OFFSETS.length];
+      for (int s = 0; s < n; s++)
+      {
+        int w = itemCells[s] % gridW, h = itemCells[s] / gridW, count = 0;
+        if (itemKinds[s] != ItemGrid.TRAP) spots[count++] = itemCells[s];
+        else
+          for (int[] off : DISARM_OFFSETS)
+            if (w - off[0] >= 0 && w - off[0] < gridW && h - off[1] >= 0 && h - off[1] < gridH)
+              spots[count++] = (h - off[1]) * gridW + w - off[0];
+        engine.getPathfinder().distancesFrom(spots, count, field);
+        System.arraycopy(field, 0, itemDistance, s * field.length, field.length);
+      }
+    }
+    else
+    {
+      itemDistance = null;
+      exitDistance = null;
+    }
+  }
+
+  public BoardSolver(GameEngine engine, ScoreConfig cfg, int budget)
+  {
+    this(engine, cfg, budget, 1 << 20);
+  }
+
+  /** Best final score from the start (score 0, no powerup, player at 0,0). */
+  public Result solve()
+  {
+    long t0 = System.nanoTime();
+    cache.clear();
+    best.set(endDelta(0));                 // quitting at once
+    long nodes = 0, hits = 0, evictions = 0;
+    if (budget > 0 && best.get() < new Search(false).upperBound(0, 0, budget))
+    {
+      List<Root> roots = new ArrayList<>();
+      for (Command a : ACTIONS) roots.add(new Root(a));
+      ForkJoinTask.invokeAll(roots);
+      for (Root r : roots)
+      {
+        nodes += r.search.nodes;
+        hits += r.search.hits;
+        evictions += r.search.evictions;
+      }
+    }
+    int score = best.get();
+
+    Search walk = new Search(false);
+    Command[] line = walk.line(score);
+    nodes += walk.nodes;
+    hits += walk.hits;
+    evictions += walk.evictions;
+    return new Result(score, line, nodes, hits, evictions, System.nanoTime() - t0);
+  }
+
+  /** One root move searched by its own worker. */
+  private final class Root extends RecursiveAction
+  {
+    private static final long serialVersionUID = 141L;
+    private final Command action;
+    private final Search search = new Search(true);
+
+    Root(Command action) { this.action = action; }
+
+    @Override
+    protected void compute()
+    {
+      if (!search.apply(action, 0, 0)) return;
+      int r = search.reward;
+      search.take(search.slot);
+      search.take(search.powerSlot);
+      search.value(search.cell, search.charge, search.free ? back(action) : 0, budget - 1, best.get() - r, r);
+    }
+  }
+
+  /* ---------- search ---------- */
+
+  /** Depth-first search state of one worker: which items it has taken on the current path. */
+  private final class Search
+  {
+    private final boolean shareBound;     // cut against the shared best (not while walking a line)
+    private final long[] taken = new long[(itemCells.length + 63) >>> 6];
+    private long zA, zB;                  // Zobrist hash of the taken set
+    private int livePrizes, liveTraps, livePowerups;
+
+    // result of apply(): reward, player cell and charge after, items taken (or -1),
+    // and whether it was a free move (moved, scored nothing, took nothing)
+    private int reward, cell, charge, slot, powerSlot;
+    private boolean free;
+
+    // candidate moves per commands-left level: priority, reward, cell, charge, slot, powerSlot, back
+    private int[][] moves = new int[16][];
+
+    long nodes, hits, evictions;
+
+    Search(boolean shareBound)
+    {
+      this.shareBound = shareBound;
+      for (byte k : itemKinds)
+      {
+        if (k == ItemGrid.PRIZE) livePrizes++;
+        else if (k == ItemGrid.TRAP) liveTraps++;
+        else livePowerups++;
+      }
+    }
+
+    /**
+     * Best score still to come from here, if it is above alpha; otherwise some
+     * upper bound <= alpha. pathScore is the score already made on this path.
+     */
+    int value(int at, int charge, int back, int left, int alpha, int pathScore)
+    {
+      nodes++;
+      int quit = endDelta(at);
+      if (left == 0) return quit;
+
+      int bound = upperBound(at, charge, left);
+      if (shareBound) alpha = Math.max(alpha, best.get() - pathScore);
+      if (bound <= alpha) return bound;
+
+      long keyA = zA ^ back * BACK_KEY, keyB = key(at, charge, left);
+      long hit = cache.get(keyA, keyB);
+      if (hit != 0)
+      {
+        int v = (int) hit;
+        if ((hit & Cache.EXACT) != 0 || v <= alpha)
+        {
+          hits++;
+          return v;
+        }
+      }
+
+      // try the moves that score or head for the nearest item first, so a strong
+      // line is found early and the bound cuts the rest
+      if (left >= moves.length) moves = Arrays.copyOf(moves, Math.max(left + 1, 2 * moves.length));
+      int[] m = moves[left];
+      if (m == null) m = moves[left] = new int[ACTIONS.length * MOVE_INTS];
+      int n = 0;
+      for (int a = 0; a < ACTIONS.length; a++)
+      {
+        if (!apply(ACTIONS[a], at, charge) || free && ACTIONS[a].ordinal() + 1 == back) continue;
+        int o = n++ * MOVE_INTS;
+        m[o] = reward * 16 - distanceToGain(this.cell, this.charge);
+        m[o+1] = reward; m[o+2] = this.cell; m[o+3] = this.charge; m[o+4] = slot; m[o+5] = powerSlot;
+        m[o+6] = free ? back(ACTIONS[a]) : 0;
+      }
+
+      int result = quit;
+      for (int i = 0; i < n; i++)
+      {
+        int top = i;
+        for (int j = i + 1; j < n; j++) if (m[j * MOVE_INTS] > m[top * MOVE_INTS]) top = j;
+        if (top != i)
+          for (int k = 0; k < MOVE_INTS; k++)
+          {
+            int t = m[i * MOVE_INTS + k];
+            m[i * MOVE_INTS + k] = m[top * MOVE_INTS + k];
+            m[top * MOVE_INTS + k] = t;
+          }
+        int o = i * MOVE_INTS;
+        if (shareBound) alpha = Math.max(alpha, best.get() - pathScore);
+        int r = m[o+1], nextCell = m[o+2], nextCharge = m[o+3], s = m[o+4], p = m[o+5], nextBack = m[o+6];
+        take(s);
+        take(p);
+        int v = r + value(nextCell, nextCharge, nextBack, left - 1, Math.max(alpha, result) - r, pathScore + r);
+        untake(p);
+        untake(s);
+        if (v > result) result = v;
+      }
+
+      // children may have cut against a better shared score than alpha was raised to
+      if (shareBound) alpha = Math.max(alpha, best.get() - pathScore);
+      boolean exact = result > alpha;
+      if (exact && shareBound && pathScore + result > best.get())
+        best.accumulateAndGet(pathScore + result, Math::max);
+      if (cache.put(keyA, keyB, Cache.pack(result, exact, left))) evictions++;
+      return result;
+    }
+
+    private long key(int at, int charge, int left)
+    {
+      if (livePrizes == 0) charge = 0;      // nothing left to double
+      return zB ^ ((long) at | (long) charge << 27 | (long) left << 43);
+    }
+
+    /** Exact value from here if known without searching, else UNKNOWN. */
+    private int known(int at, int charge, int back, int left)
+    {
+      if (left == 0) return endDelta(at);
+      long hit = cache.get(zA ^ back * BACK_KEY, key(at, charge, left));
+      return (hit & Cache.EXACT) != 0 ? (int) hit : UNKNOWN;
+    }
+
+    /** A line worth target from the start, rebuilt through the cache. */
+    Command[] line(int target)
+    {
+      List<Command> line = new ArrayList<>();
+      int at = 0, charge = 0, back = 0, need = target;
+      for (int left = budget; left > 0 && need != endDelta(at); left--)
+      {
+        // follow exact values the search left in the memo; search only if none fits
+        Command chosen = null;
+        for (int pass = 0; pass < 2 && chosen == null; pass++)
+          for (Command a : ACTIONS)
+          {
+            if (!apply(a, at, charge) || free && a.ordinal() + 1 == back) continue;
+            int r = reward, nextCell = this.cell, nextCharge = this.charge, s = slot, p = powerSlot;
+            int nextBack = free ? back(a) : 0;
+            take(s);
+            take(p);
+            int v = pass == 0 ? known(nextCell, nextCharge, nextBack, left - 1)
+                              : value(nextCell, nextCharge, nextBack, left - 1, need - r - 1, 0);
+            if (v != UNKNOWN && r + v >= need)
+            {
+              chosen = a;
+              at = nextCell;
+              charge = nextCharge;
+              back = nextBack;
+              need -= r;
+              break;
+            }
+            untake(p);
+            untake(s);
+          }
+        if (chosen == null) throw new IllegalStateException("no move reaches score " + target);
+        line.add(chosen);
+      }
+      if (line.size() < budget) line.add(Command.QUIT);
+      return line.toArray(new Command[0]);
+    }
+
+    /* ---------- rules ---------- */
+
+    /**
+     * Outcome of command a from (at, charge) into reward / cell / charge / slot,
+     * without changing the taken set. False if a can never beat finishing now.
+     */
+    boolean apply(Command a, int at, int charge)
+    {
+      int c = at % gridW, r = at / gridW;
+      int steps = 0;
+      reward = 0;
+      slot = -1;
+      free = false;
+      switch (a) {
+        case RIGHT: case LEFT: case UP: case DOWN: {
+          int dx = dx(a), dy = dy(a);
+          if (!open(c, r, dx, dy)) return false;
+          c += dx;
+          r += dy;
+          steps = 1;
+          landed(r*gridW + c);
+          break;
+        }
+        case JUMP_RIGHT: case JUMP_LEFT: case JUMP_UP: case JUMP_DOWN: {
+          int dx = dx(a), dy = dy(a);
+          if (!open(c, r, dx, dy)) return false;
+          c += dx;
+          r += dy;
+          steps = 2;
+          if (open(c, r, dx, dy))
+          {
+            c += dx;
+            r += dy;
+            landed(r*gridW + c);
+          }
+          else reward = -(c + dx < 0 || c + dx >= gridW || r + dy < 0 || r + dy >= gridH
+                          ? cfg.offGridVal : cfg.hitWallVal);
+          break;
+        }
+        case PICKUP: {
+          slot = live(at, ItemGrid.PRIZE);
+          if (slot < 0) return false;
+          reward = charge > 0 ? 2*cfg.prizeVal : cfg.prizeVal;
+          break;
+        }
+        case DETRAP: {
+          for (int[] off : DISARM_OFFSETS)
+          {
+            int w = c + off[0], h = r + off[1];
+            if (w < 0 || h < 0 || w >= gridW || h >= gridH) continue;
+            slot = live(h*gridW + w, ItemGrid.TRAP);
+            if (slot >= 0) break;
+          }
+          if (slot < 0) return false;
+          reward = cfg.trapVal;
+          break;
+        }
+        default:                // waiting only helps to grab a powerup underfoot
+          if (live(at, ItemGrid.POWERUP) < 0) return false;
+          break;
+      }
+
+      // auto-pickup of a powerup where the command ends, then burn-down by steps taken
+      this.cell = r*gridW + c;
+      powerSlot = live(this.cell, ItemGrid.POWERUP);
+      if (powerSlot >= 0) charge = cfg.powerupSteps;
+      this.charge = Math.max(0, charge - steps);
+      free = steps > 0 && reward == 0 && slot < 0 && powerSlot < 0;
+      return true;
+    }
+
+    /** Landing on cell: spring a live trap there. */
+    private void landed(int cell)
+    {
+      slot = live(cell, ItemGrid.TRAP);
+      if (slot >= 0) reward = -cfg.trapPenalty;
+    }
+
+    /** Slot of a live item of this kind on cell, or -1. */
+    private int live(int cell, int kind)
+    {
+      int s = Arrays.binarySearch(itemCells, cell);
+      if (s < 0 || itemKinds[s] != kind || (taken[s >>> 6] & (1L << s)) != 0) return -1;
+      return s;
+    }
+
+    void take(int s)
+    {
+      if (s < 0) return;
+      taken[s >>> 6] |= 1L << s;
+      flip(s, -1);
+    }
+
+    void untake(int s)
+    {
+      if (s < 0) return;
+      taken[s >>> 6] &= ~(1L << s);
+      flip(s, +1);
+    }
+
+    private void flip(int s, int change)
+    {
+      zA ^= Seeds.mix(SALT_A, s);
+      zB ^= Seeds.mix(SALT_B, s);
+      if (itemKinds[s] == ItemGrid.PRIZE) livePrizes += change;
+      else if (itemKinds[s] == ItemGrid.TRAP) liveTraps += change;
+      else livePowerups += change;
+    }
+
+    /**
+     * Cells from cell to the nearest live prize or detrap spot, or powerup while
+     * there are prizes to double (the exit once nothing is left).
+     */
+    private int distanceToGain(int cell, int charge)
+    {
+      boolean powerups = charge == 0 && livePrizes > 0;
+      if (livePrizes + liveTraps == 0) return gridW - 1 - cell % gridW;
+      if (itemCells.length > SCAN_ITEMS) return 0;
+      int near = Integer.MAX_VALUE;
+      for (int s = 0; s < itemCells.length; s++)
+      {
+        if ((taken[s >>> 6] & (1L << s)) != 0 || itemKinds[s] == ItemGrid.POWERUP && !powerups) continue;
+        near = Math.min(near, distance(s, cell));
+      }
+      return near;
+    }
+
+    /** Most that can still be scored: the best gains that fit in the commands left, plus the end bonus. */
+    int upperBound(int at, int charge, int left)
+    {
+      int doubled, single, traps;
+      if (itemCells.length <= SCAN_ITEMS)
+      {
+        // only items the player can still get to (a command moves at most two
+        // cells, and one more takes the item); a prize counts double only if the
+        // charge or some live powerup is close enough to it
+        doubled = single = traps = 0;
+        for (int s = 0; s < itemCells.length; s++)
+        {
+          if ((taken[s >>> 6] & (1L << s)) != 0 || itemKinds[s] == ItemGrid.POWERUP) continue;
+          int d = distance(s, at);
+          if ((d + 1) / 2 >= left) continue;
+          if (itemKinds[s] == ItemGrid.TRAP) traps++;
+          else if (d < charge || powerupNear(s)) doubled++;
+          else single++;
+        }
+      }
+      else
+      {
+        traps = liveTraps;
+        boolean dbl = charge > 0 || livePowerups > 0 && cfg.powerupSteps > 0;
+        doubled = dbl ? livePrizes : 0;
+        single = dbl ? 0 : livePrizes;
+      }
+
+      // the best gains that fit: one command each, and a move between two pickups
+      int prizeRoom = (left + 1) / 2, room = left, gain = 0;
+      int take = Math.min(doubled, prizeRoom);
+      if (2*cfg.prizeVal >= cfg.trapVal)
+      {
+        gain += take * 2*cfg.prizeVal;
+        prizeRoom -= take;
+        room -= take;
+      }
+      int t = Math.min(traps, room);
+      gain += t * cfg.trapVal;
+      room -= t;
+      if (2*cfg.prizeVal < cfg.trapVal)
+      {
+        take = Math.min(take, room);
+        gain += take * 2*cfg.prizeVal;
+        prizeRoom -= take;
+        room -= take;
+      }
+      gain += Math.min(single, Math.min(prizeRoom, room)) * cfg.prizeVal;
+
+      int toExit = exitDistance == null ? gridW - 1 - at % gridW : exitDistance[at];
+      boolean canEscape = toExit != Pathfinder.UNREACHABLE && (toExit + 1) / 2 <= left;
+      return Math.max(0, gain) + (canEscape ? cfg.endVal : -cfg.endVal);
+    }
+
+    /**
+     * True if a live powerup lies within a charge's reach of prize s (the move
+     * onto the powerup already burns a step of it).
+     */
+    private boolean powerupNear(int s)
+    {
+      for (int p = 0; p < itemCells.length; p++)
+        if (itemKinds[p] == ItemGrid.POWERUP && (taken[p >>> 6] & (1L << p)) == 0
+            && distance(s, itemCells[p]) < cfg.powerupSteps - 1)
+          return true;
+      return false;
+    }
+  }
+
+  /** Steps from cell to where item s can be taken (a large number if cut off). */
+  private int distance(int s, int cell)
+  {
+    if (itemDistance == null)
+    {
+      int d = Math.abs(itemCells[s] % gridW - cell % gridW) + Math.abs(itemCells[s] / gridW - cell / gridW);
+      return itemKinds[s] == ItemGrid.TRAP ? Math.max(0, d - 1) : d;
+    }
+    int d = itemDistance[s * gridW * gridH + cell];
+    return d == Pathfinder.UNREACHABLE ? Integer.MAX_VALUE / 2 : d;
+  }
+
+  private boolean open(int c, int r, int dx, int dy)
+  {
+    int nc = c + dx, nr = r + dy;
+    return nc >= 0 && nr >= 0 && nc < gridW && nr < gridH && !walls.blocks(c, r, dx, dy);
+  }
+
+  private int endDelta(int cell)
+  {
+    return cell % gridW >= gridW - 1 ? cfg.endVal : -cfg.endVal;
+  }
+
+  /**
+   * 1 + ordinal of the move that undoes a; the state remembers it after a free
+   * move so undoing that move for free (a wasted pair) is never searched.
+   */
+  static int back(Command a)
+  {
+    switch (a) {
+      case RIGHT:      return Command.LEFT.ordinal() + 1;
+      case LEFT:       return Command.RIGHT.ordinal() + 1;
+      case UP:         return Command.DOWN.ordinal() + 1;
+      case DOWN:       return Command.UP.ordinal() + 1;
+      case JUMP_RIGHT: return Command.JUMP_LEFT.ordinal() + 1;
+      case JUMP_LEFT:  return Command.JUMP_RIGHT.ordinal() + 1;
+      case JUMP_UP:    return Command.JUMP_DOWN.ordinal() + 1;
+      case JUMP_DOWN:  return Command.JUMP_UP.ordinal() + 1;
+      default:         return 0;
+    }
+  }
+
+  private static int dx(Command a)
+  {
+    return a == Command.RIGHT || a == Command.JUMP_RIGHT ? 1 : a == Command.LEFT || a == Command.JUMP_LEFT ? -1 : 0;
+  }
+
+  private static int dy(Command a)
+  {
+    return a == Command.DOWN || a == Command.JUMP_DOWN ? 1 : a == Command.UP || a == Command.JUMP_UP ? -1 : 0;
+  }
+
+  /* ---------- memo table ---------- */
+
+  /**
+   * Open-addressing table of (keyA, keyB) -> packed value, three longs per entry,
+   * shared by the workers without locks: each key word is stored XOR the data,
+   * so a torn write simply reads back as a miss.
+   */
+  private static final class Cache
+  {
+    static final long EXACT = 1L << 32;
+
+    private final long[] keyA, keyB, data;
+    private final int mask;
+
+    Cache(int entries)
+    {
+      int size = Integer.highestOneBit(Math.max(2, entries - 1)) << 1;
+      keyA = new long[size];
+      keyB = new long[size];
+      data = new long[size];
+      mask = size - 1;
+    }
+
+    /** value, exact or upper bound, and the commands left it was searched with (never 0). */
+    static long pack(int value, boolean exact, int left)
+    {
+      return (value & 0xffffffffL) | (exact ? EXACT : 0) | (long) left << 33;
+    }
+
+    private int bucket(long a, long b)
+    {
+      long h = (a ^ b * 0x9E3779B97F4A7C15L);
+      return (int) (h ^ (h >>> 32)) & mask & ~1;
+    }
+
+    void clear()
+    {
+      Arrays.fill(data, 0L);
+    }
+
+    /** Packed entry, or 0 on a miss. */
+    long get(long a, long b)
+    {
+      int i = bucket(a, b);
+      for (int j = i; j <= i + 1; j++)
+      {
+        long d = data[j];
+        if (d != 0 && (keyA[j] ^ d) == a && (keyB[j] ^ d) == b) return d;
+      }
+      return 0;
+    }
+
+    /** Store; the shallower of the two slots gives way. True if another entry was evicted. */
+    boolean put(long a, long b, long d)
+    {
+      int i = bucket(a, b);
+      int j = i;
+      for (int k = i; k <= i + 1; k++)
+      {
+        long old = data[k];
+        if (old == 0 || ((keyA[k] ^ old) == a && (keyB[k] ^ old) == b)) { j = k; break; }
+        if ((old >>> 33) < (data[j] >>> 33)) j = k;
+      }
+      long old = data[j];
+      boolean evicted = old != 0 && !((keyA[j] ^ old) == a && (keyB[j] ^ old) == b);
+      keyA[j] = a ^ d;
+      keyB[j] = b ^ d;
+      data[j] = d;
+      return evicted;
+    }
+  }
+
+  /* ---------- command line ---------- */
+
+  public static void main(String[] args)
+  {
+    int gridW = GameEngine.DEFAULT_GRID_W, gridH = GameEngine.DEFAULT_GRID_H;
+    int boards = 1, cacheMB = 64;
+    long seed = 1;
+    ScoreConfig cfg = new ScoreConfig();
+    int budget = cfg.timeLimitSeconds;
+    for (String a : args)
+    {
+      int eq = a.indexOf('=');
+      if (eq < 0) throw new IllegalArgumentException("expected key=value, got " + a);
+      String key = a.substring(0, eq), val = a.substring(eq + 1);
+      switch (key) {
+        case "boards":  boards = Integer.parseInt(val); break;
+        case "budget":  budget = Integer.parseInt(val); break;
+        case "cacheMB": cacheMB = Integer.parseInt(val); break;
+        case "seed":    seed = Long.parseLong(val); break;
+        case "size": {
+          String[] wh = val.split("x");
+          gridW = Integer.parseInt(wh[0]);
+          gridH = Integer.parseInt(wh[1]);
+          break;
+        }
+        default: throw new IllegalArgumentException("unknown option " + key);
+      }
+    }
+
+    GameEngine engine = new GameEngine(gridW, gridH);
+    engine.setQuiet(true);
+    engine.setScoreConfig(cfg);
+    for (int i = 0; i < boards; i++)
+    {
+      engine.setSeed(Seeds.mix(seed, i));
+      engine.createBoard();
+      BoardSolver solver = new BoardSolver(engine, cfg, budget, (int) Math.min(1 << 30, cacheMB * (1L << 20) / 24));
+      Result r = solver.solve();
+      StringBuilder line = new StringBuilder();
+      for (Command c : r.line) line.append(c.name().toLowerCase()).append(' ');
+      System.out.printf("board %d: best %d in %.2f ms (%d nodes, %d cache hits, %d evicted)%n  %s%n",
+                        i, r.score, r.nanos / 1e6, r.nodes, r.cacheHits, r.evictions, line.toString().trim());
+    }
+  }
+}
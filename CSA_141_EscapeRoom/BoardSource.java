@@ -0,0 +1,12 @@
+/**
+ * A ready-made board (e.g. a level from a BoardPack) for GameEngine.createBoard(BoardSource)
+ * - Fills the engine's walls and items directly; no per-item objects
+ */
+public interface BoardSource
+{
+  int gridW();
+  int gridH();
+
+  /** Write this board into cleared walls and items of gridW() x gridH(). */
+  void fill(WallEdges walls, ItemGrid items);
+}
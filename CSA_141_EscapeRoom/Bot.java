@@ -0,0 +1,12 @@
+import java.util.Random;
+
+/**
+ * Automated player for simulations
+ * - Returns console commands (see GameSession.VALID_COMMANDS), so bots play by the real rules
+ * - One instance per worker thread; implementations may keep scratch arrays between calls
+ */
+public interface Bot
+{
+  /** Next command for this session; "q" finishes the game. */
+  String nextCommand(GameEngine game, GameSession session, Random rand);
+}
@@ -0,0 +1,89 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws distinct cells from [0, cellCount) with a partial Fisher-Yates shuffle
+ * - Exactly one random number per draw; never retries, never boxes
+ * - Dense int[] permutation when most of the board is drawn,
+ *   otherwise a sparse open-addressing swap table sized to the draws (O(k) memory)
+ */
+public class CellSampler
+{
+  private final int cellCount;
+  private final int draws;
+  private final Random rand;
+  private int drawn;
+
+  // dense mode: swap[i] = cell currently at position i
+  private int[] dense;
+
+  // sparse mode: positions that were swapped, and the cell now at each
+  private int[] keys;
+  private int[] vals;
+  private int mask;
+
+  public CellSampler(int cellCount, int draws, Random rand)
+  {
+    if (draws < 0 || draws > cellCount)
+      throw new IllegalArgumentException("cannot place " + draws + " items on " + cellCount + " cells");
+    this.cellCount = cellCount;
+    this.draws = draws;
+    this.rand = rand;
+
+    if ((long) draws * 4 >= cellCount)
+    {
+      dense = new int[cellCount];
+      for (int i = 0; i < cellCount; i++) dense[i] = i;
+    }
+    else
+    {
+      int cap = Integer.highestOneBit(Math.max(8, draws) * 2 - 1) << 1;   // >= 2*draws, power of two
+      keys = new int[cap];
+      vals = new int[cap];
+      Arrays.fill(keys, -1);
+      mask = cap - 1;
+    }
+  }
+
+  public boolean hasNext() { return drawn < draws; }
+
+  /** Next distinct cell index. */
+  public int next()
+  {
+    if (drawn >= draws) throw new IllegalStateException("all " + draws + " cells already drawn");
+    int i = drawn++;
+    int j = i + rand.nextInt(cellCount - i);
+
+    if (dense != null)
+    {
+      int cell = dense[j];
+      dense[j] = dense[i];
+      return cell;
+    }
+    int cell = lookup(j);
+    store(j, lookup(i));   // position i is never drawn again, so it needs no update
+    return cell;
+  }
+
+  /* ---------- sparse swap table ---------- */
+
+  private int slot(int key)
+  {
+    int h = (key * 0x9E3779B9) & mask;
+    while (keys[h] != -1 && keys[h] != key) h = (h + 1) & mask;
+    return h;
+  }
+
+  private int lookup(int pos)
+  {
+    int h = slot(pos);
+    return keys[h] == -1 ? pos : vals[h];
+  }
+
+  private void store(int pos, int cell)
+  {
+    int h = slot(pos);
+    keys[h] = pos;
+    vals[h] = cell;
+  }
+}
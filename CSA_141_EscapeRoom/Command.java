@@ -0,0 +1,76 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Console commands, parsed once into an id that GameSession switches on
+ * - Every alias, plus every unambiguous prefix of one, is precompiled into a
+ *   single hash table, so parsing a word is one lowercase + one lookup
+ * - Exact aliases win over prefixes ("ju" is jump up and "jump" is jump right,
+ *   though both begin other aliases); an ambiguous prefix such as "jum" is no command
+ */
+public enum Command
+{
+  RIGHT("right", "r"),
+  LEFT("left", "l"),
+  UP("up", "u"),
+  DOWN("down", "d"),
+  JUMP_RIGHT("jump", "jr"),
+  JUMP_LEFT("jumpleft", "jl"),
+  JUMP_UP("jumpup", "ju"),
+  JUMP_DOWN("jumpdown", "jd"),
+  PICKUP("pickup", "p"),
+  FIND_TRAP_RIGHT("findtrapright", "ftr"),
+  FIND_TRAP_LEFT("findtrapleft", "ftl"),
+  FIND_TRAP_UP("findtrapup", "ftu"),
+  FIND_TRAP_DOWN("findtrapdown", "ftd"),
+  DETRAP("detrap", "dt"),
+  REPLAY("replay"),
+  HELP("help", "?"),
+  QUIT("quit", "q");
+
+  private final String[] aliases;
+
+  Command(String... aliases) { this.aliases = aliases; }
+
+  /** Full name first, then the short forms. */
+  public String[] aliases() { return aliases.clone(); }
+
+  private static final Map<String, Command> TABLE = new HashMap<>();
+
+  static
+  {
+    Set<String> ambiguous = new HashSet<>();
+    for (Command c : values())
+      for (String alias : c.aliases)
+        for (int len = 1; len < alias.length(); len++)
+        {
+          String prefix = alias.substring(0, len);
+          Command seen = TABLE.putIfAbsent(prefix, c);
+          if (seen != null && seen != c) ambiguous.add(prefix);
+        }
+    TABLE.keySet().removeAll(ambiguous);
+    for (Command c : values())
+      for (String alias : c.aliases)
+        TABLE.put(alias, c);           // exact aliases always win
+  }
+
+  /** Command for an alias or unambiguous prefix (any case), or null. */
+  public static Command parse(String word)
+  {
+    Command c = TABLE.get(word);
+    return (c != null) ? c : TABLE.get(word.trim().toLowerCase());
+  }
+
+  /** Every exact alias, in declaration order (GameSession.VALID_COMMANDS). */
+  public static String[] allAliases()
+  {
+    List<String> all = new ArrayList<>();
+    for (Command c : values())
+      for (String alias : c.aliases) all.add(alias);
+    return all.toArray(new String[0]);
+  }
+}
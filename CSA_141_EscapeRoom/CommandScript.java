@@ -0,0 +1,75 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Batch input: commands read from a buffered stream with no prompts
+ * - Any number of commands per line, separated by spaces, commas or ';'
+ * - '#' starts a comment to the end of the line
+ * - Unknown words are reported on stderr with their line number and skipped
+ */
+public class CommandScript implements AutoCloseable
+{
+  private final BufferedReader in;
+  private String[] words = new String[0];
+  private int next;
+  private int lineNo;
+
+  public CommandScript(Reader reader)
+  {
+    in = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+  }
+
+  /** Script from standard input. */
+  public static CommandScript stdin()
+  {
+    return new CommandScript(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+  }
+
+  public static CommandScript open(Path file) throws IOException
+  {
+    return new CommandScript(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+  }
+
+  /** Next valid command, or null at end of input. */
+  public Command next()
+  {
+    while (true)
+    {
+      while (next < words.length)
+      {
+        String word = words[next++];
+        if (word.isEmpty()) continue;
+        Command c = Command.parse(word);
+        if (c != null) return c;
+        System.err.println("line " + lineNo + ": unknown command '" + word + "'");
+      }
+      String line;
+      try
+      {
+        line = in.readLine();
+      }
+      catch (IOException e)
+      {
+        throw new UncheckedIOException(e);
+      }
+      if (line == null) return null;
+      lineNo++;
+      int hash = line.indexOf('#');
+      if (hash >= 0) line = line.substring(0, hash);
+      words = line.trim().split("[\\s,;]+");
+      next = 0;
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    in.close();
+  }
+}
@@ -0,0 +1,76 @@
+import java.io.PrintStream;
+
+/**
+ * GameEventListener that prints the classic EscapeRoom console messages
+ * - Buffered: a command's messages are collected and written to the stream
+ *   in one call at commandDone(), instead of one synchronized println each;
+ *   the stream's own flush policy applies (System.out flushes per line, a
+ *   batch run's buffered stream only when full)
+ * - autoFlush writes every message at once (engine used without a session,
+ *   where nothing calls commandDone)
+ */
+public class ConsoleEvents implements GameEventListener
+{
+  private final PrintStream out;
+  private final boolean autoFlush;
+  private final StringBuilder buf = new StringBuilder(256);
+
+  public ConsoleEvents(PrintStream out, boolean autoFlush)
+  {
+    this.out = out;
+    this.autoFlush = autoFlush;
+  }
+
+  /** Buffered printer flushed at the end of each command. */
+  public ConsoleEvents(PrintStream out)
+  {
+    this(out, false);
+  }
+
+  private void line(String msg)
+  {
+    buf.append(msg).append(System.lineSeparator());
+    if (autoFlush) flush();
+  }
+
+  /** Hand anything buffered to the stream. */
+  public void flush()
+  {
+    if (buf.length() == 0) return;
+    out.print(buf.toString());
+    buf.setLength(0);
+  }
+
+  public void wallHit()                 { line("A WALL IS IN THE WAY"); }
+  public void offGrid()                 { line("OFF THE GRID!"); }
+  public void prizeCollected(int value) { line("YOU PICKED UP A PRIZE!"); }
+  public void noPrize(int penalty)      { line("OOPS, NO PRIZE HERE"); }
+  public void trapSprung(int penalty)   { line("TRAP VICTIM! -" + penalty); }
+  public void noTrapToSpring(int penalty) { line("THERE IS NO TRAP HERE TO SPRING"); }
+  public void trapDisarmed(int bonus)   { line("Trap disarmed! +" + bonus); }
+  public void noTrapInRange(int penalty) { line("No trap in range. " + penalty); }
+  public void powerupGained(int steps)  { line("POWERUP! Double coins for next " + steps + " steps."); }
+  public void powerupExpired()          { line("Powerup expired."); }
+  public void boardReset()              { line("Board reset. Steps reset to 0."); }
+
+  public void trapScan(int dx, int dy, boolean found)
+  {
+    if (dx > 0)      line(found ? "Trap to the RIGHT." : "No trap to the RIGHT.");
+    else if (dx < 0) line(found ? "Trap to the LEFT." : "No trap to the LEFT.");
+    else if (dy < 0) line(found ? "Trap UP." : "No trap UP.");
+    else             line(found ? "Trap DOWN." : "No trap DOWN.");
+  }
+
+  public void helpRequested(int timeLimitSeconds)
+  {
+    flush();
+    GameSession.printHelp(out, timeLimitSeconds);
+  }
+
+  public void gameEnded(boolean escaped, int scoreDelta)
+  {
+    line(escaped ? "YOU MADE IT!" : "OOPS, YOU QUIT TOO SOON!");
+  }
+
+  public void commandDone() { flush(); }
+}
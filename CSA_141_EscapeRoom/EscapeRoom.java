@@ -2,262 +2,197 @@
 * Problem 1: Escape Room
 *
 * V2.3 – visible traps, -10 on trap, detrap (adjacent), timer, powerups (double coins for N steps),
-*         and unique placement for items handled in GameGUI.
+*         and unique placement for items handled in GameEngine.
+*         GameGUI is only attached when a display is available (java.awt.headless=false).
+*         Command rules live in GameSession; commands run on a single-writer GameLoop
+*         and the view paints immutable snapshots. This class is the console input loop;
+*         input is read on its own thread and the time limit is a scheduled timer.
+*
+* Usage: java EscapeRoom [-b | -f script] [-s seed] [-j journal] [-e] [width height]
+*        width height  board size in cells, default 8x5
+*        -e            endless mode: rooms of width x height keep coming as you head right
+*        -b            batch mode: read commands from stdin, no prompts or status lines
+*        -f script     batch mode reading commands from a file
+*        -s seed       board seed (random if omitted); the same seed gives the same board
+*        -j journal    record the session to a binary journal (re-run with Replayer)
+*        -l pack       play a level from a BoardPack file instead of a random board
+*        -n index      level number in the pack (default 0)
+*        -m seconds    print GameMetrics every N seconds (always available over JMX)
+*        -r dir        add the result to the Leaderboard in dir and print its rank
+*        -p player     name on the leaderboard (default: the user name)
 */
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Future;
+
 public class EscapeRoom
 {
-  // === Timer config ===
-  private static final int TIME_LIMIT_SECONDS = 90;
-
-  // === Powerup config ===
-  private static final int POWERUP_STEPS_DURATION = 20;  // lasts this many player steps
-
-  private static void printHelp() {
-    System.out.println("\nCommands:");
-    System.out.println("  Movement:  right|r, left|l, up|u, down|d");
-    System.out.println("  Jump:      jr (jump right), jl, ju, jd  (jumps over 1 space; cannot jump through walls)");
-    System.out.println("  Prize:     pickup | p  (Collect $)  [doubles while powerup active]");
-    System.out.println("  Traps:     ftr/ftl/ftu/ftd (Find Trap 1 space away), detrap | dt (disarm trap under/adjacent)");
-    System.out.println("  Other:     replay   (reset same board)");
-    System.out.println("             help|?   (this menu)");
-    System.out.println("             quit|q   (Finish / Fail Finish)");
-    System.out.println("             (Timer auto-ends at " + TIME_LIMIT_SECONDS + "s)\n");
-  }
+  // batch mode waits for the loop after this many queued commands (back-pressure)
+  private static final int BATCH_WINDOW = 1024;
 
-  public static void main(String[] args)
+  public static void main(String[] args) throws IOException, InterruptedException
   {
-    System.out.println("Welcome to EscapeRoom!");
-    System.out.println("Get to the other side, avoid walls & traps, collect coins. Type 'help' for commands.\n");
-
-    GameGUI game = new GameGUI();   // draws board, items, powerups
-    game.createBoard();
-
-    final int m = 60;                // grid step (must match board)
-    final int TRAP_PEN = 10;         // -10 when you STEP on a trap
-
-    int score = 0;
-
-    // powerup state
-    boolean doubleCoinsActive = false;
-    int doubleCoinsStepsLeft = 0;
-
-    String[] validCommands = {
-      "right","left","up","down","r","l","u","d",
-      "jump","jr","jumpleft","jl","jumpup","ju","jumpdown","jd",
-      "pickup","p",
-      "findtrapright","ftr","findtrapleft","ftl","findtrapup","ftu","findtrapdown","ftd",
-      "detrap","dt",
-      "replay","help","?","quit","q"
-    };
-
-    long tStart = System.currentTimeMillis();
-    boolean play = true;
-    boolean timedOut = false;
-
-    printHelp();
-
-    while (play)
+    CommandScript script = null;
+    long seed = new Random().nextLong();
+    String journalFile = null, packFile = null, boardDir = null;
+    String player = System.getProperty("user.name", "player");
+    int levelIndex = 0, metricsPeriod = 0;
+    boolean endless = false;
+    List<String> size = new ArrayList<>();
+    for (int i = 0; i < args.length; i++)
     {
-      // timer check before command
-      int timeLeft = TIME_LIMIT_SECONDS - (int)((System.currentTimeMillis() - tStart)/1000);
-      if (timeLeft <= 0) { timedOut = true; break; }
+      if (args[i].equals("-b")) script = CommandScript.stdin();
+      else if (args[i].equals("-f") && i + 1 < args.length) script = CommandScript.open(Paths.get(args[++i]));
+      else if (args[i].equals("-s") && i + 1 < args.length) seed = Long.parseLong(args[++i]);
+      else if (args[i].equals("-j") && i + 1 < args.length) journalFile = args[++i];
+      else if (args[i].equals("-l") && i + 1 < args.length) packFile = args[++i];
+      else if (args[i].equals("-n") && i + 1 < args.length) levelIndex = Integer.parseInt(args[++i]);
+      else if (args[i].equals("-m") && i + 1 < args.length) metricsPeriod = Integer.parseInt(args[++i]);
+      else if (args[i].equals("-e")) endless = true;
+      else if (args[i].equals("-r") && i + 1 < args.length) boardDir = args[++i];
+      else if (args[i].equals("-p") && i + 1 < args.length) player = args[++i];
+      else size.add(args[i]);
+    }
 
-      System.out.print("Enter command (time left " + timeLeft + "s):");
-      String input = UserInput.getValidInput(validCommands);
+    if (packFile != null && journalFile != null)      // journals regenerate boards from the seed
+      throw new IllegalArgumentException("-j records seeded boards; it cannot be combined with -l");
+    if (endless && (packFile != null || journalFile != null))
+      throw new IllegalArgumentException("-e generates rooms as you go; it cannot be combined with -l or -j");
+    if (packFile != null && boardDir != null)        // entries name the seed of the board played
+      throw new IllegalArgumentException("-r ranks seeded boards; it cannot be combined with -l");
+    Leaderboard leaderboard = (boardDir == null) ? null : Leaderboard.open(Paths.get(boardDir));
 
-      int stepsBefore = game.getSteps();
+    GameMetrics.METRICS.register();
+    GameMetrics.METRICS.startDump(metricsPeriod, System.err);
 
-      switch (input) {
-        /* ---------------- Movement (single step) ---------------- */
-        case "right": case "r": {
-          int delta = game.movePlayer(m,0);
-          score += delta;
-          if (delta == 0 && game.isTrap(0,0)) { // landed on a trap tile
-            System.out.println("TRAP VICTIM! -10");
-            score -= TRAP_PEN;
-            game.springTrap(0,0);              // clear the trap
-          }
-          break;
-        }
-        case "left": case "l": {
-          int delta = game.movePlayer(-m,0);
-          score += delta;
-          if (delta == 0 && game.isTrap(0,0)) {
-            System.out.println("TRAP VICTIM! -10");
-            score -= TRAP_PEN;
-            game.springTrap(0,0);
-          }
-          break;
-        }
-        case "up": case "u": {
-          int delta = game.movePlayer(0,-m);
-          score += delta;
-          if (delta == 0 && game.isTrap(0,0)) {
-            System.out.println("TRAP VICTIM! -10");
-            score -= TRAP_PEN;
-            game.springTrap(0,0);
-          }
-          break;
-        }
-        case "down": case "d": {
-          int delta = game.movePlayer(0,m);
-          score += delta;
-          if (delta == 0 && game.isTrap(0,0)) {
-            System.out.println("TRAP VICTIM! -10");
-            score -= TRAP_PEN;
-            game.springTrap(0,0);
-          }
-          break;
-        }
+    System.out.println("Welcome to EscapeRoom!");
+    System.out.println("Get to the other side, avoid walls & traps, collect coins. Type 'help' for commands.\n");
 
-        /* ---------------- Jump (two steps) ---------------- */
-        case "jr": case "jump": {
-          int d1 = game.movePlayer(m,0);  score += d1;
-          if (d1 == 0) {
-            int d2 = game.movePlayer(m,0); score += d2;
-            if (d2 == 0 && game.isTrap(0,0)) {
-              System.out.println("TRAP VICTIM! -10");
-              score -= TRAP_PEN;
-              game.springTrap(0,0);
-            }
-          }
-          break;
-        }
-        case "jl": case "jumpleft": {
-          int d1 = game.movePlayer(-m,0); score += d1;
-          if (d1 == 0) {
-            int d2 = game.movePlayer(-m,0); score += d2;
-            if (d2 == 0 && game.isTrap(0,0)) {
-              System.out.println("TRAP VICTIM! -10");
-              score -= TRAP_PEN;
-              game.springTrap(0,0);
-            }
-          }
-          break;
-        }
-        case "ju": case "jumpup": {
-          int d1 = game.movePlayer(0,-m); score += d1;
-          if (d1 == 0) {
-            int d2 = game.movePlayer(0,-m); score += d2;
-            if (d2 == 0 && game.isTrap(0,0)) {
-              System.out.println("TRAP VICTIM! -10");
-              score -= TRAP_PEN;
-              game.springTrap(0,0);
-            }
-          }
-          break;
-        }
-        case "jd": case "jumpdown": {
-          int d1 = game.movePlayer(0,m); score += d1;
-          if (d1 == 0) {
-            int d2 = game.movePlayer(0,m); score += d2;
-            if (d2 == 0 && game.isTrap(0,0)) {
-              System.out.println("TRAP VICTIM! -10");
-              score -= TRAP_PEN;
-              game.springTrap(0,0);
-            }
-          }
-          break;
-        }
+    GameEngine game;                                    // board, items, powerups, rules
+    if (packFile != null)
+    {
+      BoardSource level = BoardPack.open(Paths.get(packFile)).level(levelIndex);
+      game = new GameEngine(level.gridW(), level.gridH());
+      game.createBoard(level);
+    }
+    else
+    {
+      int w = (size.size() >= 2) ? Integer.parseInt(size.get(0)) : GameEngine.DEFAULT_GRID_W;
+      int h = (size.size() >= 2) ? Integer.parseInt(size.get(1)) : GameEngine.DEFAULT_GRID_H;
+      game = endless ? GameEngine.endless(w, h) : new GameEngine(w, h);
+      game.setSeed(seed);
+      game.createBoard();
+    }
+    GameGUI view = GraphicsEnvironment.isHeadless() ? null : new GameGUI(game);
 
-        /* ---------------- Prizes ---------------- */
-        case "pickup": case "p": {
-          int prize = game.pickupPrize();
-          if (prize > 0 && doubleCoinsActive) {
-            // double coins -> add the same amount again
-            prize += prize;
-          }
-          score += prize;
+    // batch output goes through one large buffer instead of a flush per line
+    PrintStream console = (script == null) ? System.out
+        : new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
 
-          // allow pickup to grab a powerup if you're on one
-          if (game.pickupPowerup()) {
-            doubleCoinsActive = true;
-            doubleCoinsStepsLeft = POWERUP_STEPS_DURATION;
-            System.out.println("POWERUP! Double coins for next " + POWERUP_STEPS_DURATION + " steps.");
-          }
-          break;
-        }
-
-        /* ---------------- Trap tools ---------------- */
-        case "findtrapright": case "ftr": {
-          boolean t = game.isTrap(m,0);
-          System.out.println(t ? "Trap to the RIGHT." : "No trap to the RIGHT.");
-          break;
-        }
-        case "findtrapleft": case "ftl": {
-          boolean t = game.isTrap(-m,0);
-          System.out.println(t ? "Trap to the LEFT." : "No trap to the LEFT.");
-          break;
-        }
-        case "findtrapup": case "ftu": {
-          boolean t = game.isTrap(0,-m);
-          System.out.println(t ? "Trap UP." : "No trap UP.");
-          break;
-        }
-        case "findtrapdown": case "ftd": {
-          boolean t = game.isTrap(0,m);
-          System.out.println(t ? "Trap DOWN." : "No trap DOWN.");
-          break;
-        }
-        case "detrap": case "dt": {
-          int delta = game.disarmNearbyTrap();
-          if (delta > 0) System.out.println("Trap disarmed! +" + delta);
-          else System.out.println("No trap in range. " + delta);
-          score += delta;
-          break;
-        }
+    // from here on only the loop thread touches the session and engine
+    GameSession session = new GameSession(game);
+    session.setOut(console);
+    ReplayJournal journal = null;
+    if (journalFile != null)
+    {
+      journal = new ReplayJournal(Paths.get(journalFile), seed, game, session.getConfig());
+      session.setJournal(journal);
+    }
+    GameLoop loop = new GameLoop(session, view);
+    boolean timedOut;
 
-        /* ---------------- Session control ---------------- */
-        case "replay": {
-          score += game.replay();
-          System.out.println("Board reset. Steps reset to 0.");
-          // powerup resets on replay
-          doubleCoinsActive = false;
-          doubleCoinsStepsLeft = 0;
-          // timer DOES NOT reset (comment next lines in if you want it to)
-          // tStart = System.currentTimeMillis();
-          // System.out.println("Timer reset to " + TIME_LIMIT_SECONDS + "s.");
-          break;
-        }
-        case "help": case "?": {
-          printHelp();
-          break;
-        }
-        case "quit": case "q": {
-          play = false;
-          break;
-        }
-      }
+    if (script != null)
+    {
+      timedOut = runBatch(loop, script);
+      script.close();
+    }
+    else
+    {
+      GameSession.printHelp(System.out, session.getConfig().timeLimitSeconds);
+      timedOut = runInteractive(loop, view);
+    }
 
-      // auto-pickup powerup when you MOVE onto it (movement/jump cases)
-      if (game.pickupPowerup()) {
-        doubleCoinsActive = true;
-        doubleCoinsStepsLeft = POWERUP_STEPS_DURATION;
-        System.out.println("POWERUP! Double coins for next " + POWERUP_STEPS_DURATION + " steps.");
-      }
+    if (timedOut) console.println("\nTime's up!");
+    int score = loop.call(session::finish);
+    int steps = loop.call(game::getSteps);
+    long millisLeft = loop.call(session::millisLeft);
+    loop.close();
+    if (journal != null) journal.close();
+    if (view != null) view.close();
+    console.println("Final score=" + score);
+    console.println("Total steps=" + steps);
+    if (leaderboard != null)
+    {
+      int millisUsed = (int) Math.max(0, session.getConfig().timeLimitSeconds * 1000L - millisLeft);
+      Leaderboard.Entry entry = leaderboard.submit(player, score, steps, millisUsed, seed);
+      console.println("Rank " + leaderboard.rank(entry.score) + " of " + leaderboard.size());
+      leaderboard.close();
+    }
+    console.flush();
+  }
 
-      // burn down powerup by steps taken this loop
-      int stepsAfter = game.getSteps();
-      int stepDelta = Math.max(0, stepsAfter - stepsBefore);
-      if (doubleCoinsActive && stepDelta > 0) {
-        doubleCoinsStepsLeft -= stepDelta;
-        if (doubleCoinsStepsLeft <= 0) {
-          doubleCoinsActive = false;
-          doubleCoinsStepsLeft = 0;
-          System.out.println("Powerup expired.");
-        }
+  /**
+   * Prompt, run and print status one command at a time; true if the timer ran out.
+   * Lines arrive from a reader thread, so the scheduled timer ends the session
+   * on time even while the player sits at the prompt.
+   */
+  private static boolean runInteractive(GameLoop loop, GameGUI view) throws InterruptedException
+  {
+    GameSession session = loop.getSession();
+    AsyncInput input = new AsyncInput();
+    SessionClock clock = new SessionClock(session, input::expire, view == null ? null : view::showTimeLeft);
+    try
+    {
+      boolean playing = true;
+      while (playing)
+      {
+        System.out.print("Enter command (time left " + Math.max(0, session.timeLeft()) + "s):");
+        Command command = null;
+        while (command == null)
+        {
+          AsyncInput.Event e = input.next();
+          if (e.kind == AsyncInput.Kind.EXPIRED) return true;
+          if (e.kind == AsyncInput.Kind.END_OF_INPUT) return false;
+          command = Command.parse(e.text);
+          if (command == null) System.out.print("Invalid input. Please try again\n>");
+        }
+
+        playing = loop.execute(command);
+        loop.call(() -> { session.printStatus(); return null; });
       }
-
-      // status line with timer
-      timeLeft = TIME_LIMIT_SECONDS - (int)((System.currentTimeMillis() - tStart)/1000);
-      System.out.println("score=" + score + " | steps=" + game.getSteps() +
-                         (doubleCoinsActive ? (" | x2 coins (" + doubleCoinsStepsLeft + " steps left)") : "") +
-                         " | " + Math.max(0, timeLeft) + "s left");
+      return session.expired();      // a command typed just as time ran out is dropped
+    }
+    finally
+    {
+      clock.close();
     }
+  }
 
-    if (timedOut) System.out.println("\nTime's up!");
-    score += game.endGame();
-    System.out.println("Final score=" + score);
-    System.out.println("Total steps=" + game.getSteps());
+  /**
+   * Queue commands as fast as the script supplies them, waiting on the loop
+   * every BATCH_WINDOW commands; true if the timer ran out. The deadline is
+   * checked before every command here and again as the loop runs it.
+   */
+  private static boolean runBatch(GameLoop loop, CommandScript script)
+  {
+    GameSession session = loop.getSession();
+    Future<Boolean> last = null;
+    int queued = 0;
+    Command c;
+    while ((c = script.next()) != null && !session.expired())
+    {
+      last = loop.submit(c);
+      if (++queued % BATCH_WINDOW == 0 && !GameLoop.await(last)) break;   // quit, or out of time
+    }
+    if (last != null) GameLoop.await(last);
+    return session.expired();
   }
 }
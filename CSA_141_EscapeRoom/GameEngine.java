@@ -0,0 +1,632 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Headless game engine
+ * - Owns the board (walls, prizes, traps, powerups), the player and the scoring rules
+ * - No Swing/AWT windowing, so sessions run on java.awt.headless=true hosts
+ * - GameGUI is an optional view; it registers a change listener to repaint
+ * - Board size is chosen at runtime; all positions and offsets are in cells
+ * - Endless mode (endless()): the grid is a window of WINDOW_ROOMS rooms that
+ *   slides a room at a time as the player nears either edge. Room k is generated
+ *   from its own seed, so a room evicted from the window comes back the same on a
+ *   revisit, minus the items already taken there (kept per room as a small delta).
+ *   Memory is one window plus one delta per room left with items taken: it grows
+ *   with the rooms changed (an int per changed item), not the rooms walked, and
+ *   replay() drops it. Deltas are not bounded, since the player can walk back to
+ *   any room and must find it as they left it
+ */
+public class GameEngine
+{
+  public static final int DEFAULT_GRID_W = 8;
+  public static final int DEFAULT_GRID_H = 5;
+  public static final int MAX_GRID_SIZE  = 8192;   // per side
+  public static final int WINDOW_ROOMS   = 3;      // endless mode: rooms held at once
+
+  private final int gridW;
+  private final int gridH;
+
+  // endless mode: the grid holds rooms firstRoom .. firstRoom+WINDOW_ROOMS-1 of roomW
+  // columns each; a classic board is one room of the whole grid
+  private final int roomW;
+  private final boolean endless;
+  private long worldSeed;
+  private long firstRoom;
+  private boolean[] roomSeen;      // crossable() scratch
+  private int[] roomQueue;
+  // evicted rooms whose items changed: (local cell << 2 | live kind) per changed item
+  private final Map<Long, int[]> roomChanges = new HashMap<>();
+
+  // player placement (cell)
+  private int col;
+  private int row;
+
+  // player info
+  private int playerSteps;
+
+  // board elements
+  private int totalWalls;
+  private final WallEdges walls;
+  private final Pathfinder pathfinder;
+  private int totalPrizes;
+  private int totalTraps;
+  private int totalPowerups;
+  private final ItemGrid items;        // live items
+  private final ItemGrid boardItems;   // as generated, restored by replay
+
+  // scoring (penalties negative)
+  private int prizeVal   = 10;
+  private int trapVal    = 10; // -10 when stepped on; +10 when detrap succeeds
+  private int endVal     = 10;
+  private int offGridVal = 5;
+  private int hitWallVal = 5;
+
+  // wall layouts tried before giving up on a solvable board
+  private static final int MAX_WALL_ATTEMPTS = 1000;
+
+  // cells a trap can be disarmed from: current tile + cardinal neighbours
+  private static final int[][] DISARM_OFFSETS = { {0,0}, {1,0}, {-1,0}, {0,1}, {0,-1} };
+
+  private final Random rand = new Random();
+  private final Random roomRand = new Random();      // reseeded per endless room
+
+  // view hook (null when headless)
+  private BoardChangeListener changeListener;
+
+  // game events (console messages unless replaced)
+  private GameEventListener events = new ConsoleEvents(System.out, true);
+
+  public GameEngine()
+  {
+    this(DEFAULT_GRID_W, DEFAULT_GRID_H);
+  }
+
+  /**
+   * Board of gridW x gridH cells. Item and wall counts default to the
+   * densities of the classic 8x5 board (20 walls, 3 prizes, 5 traps, 2 powerups).
+   */
+  public GameEngine(int gridW, int gridH)
+  {
+    this(gridW, gridH, 1);
+  }
+
+  /**
+   * Endless run through rooms of roomW x roomH cells, each with the item and
+   * wall counts a classic board of that size has. The grid is WINDOW_ROOMS
+   * rooms wide; getWorldCol() gives the player's column in the whole run.
+   */
+  public static GameEngine endless(int roomW, int roomH)
+  {
+    return new GameEngine(roomW, roomH, WINDOW_ROOMS);
+  }
+
+  private GameEngine(int roomW, int gridH, int rooms)
+  {
+    long gridW = (long) roomW * rooms;
+    if (roomW < 2 || gridH < 1 || gridW > MAX_GRID_SIZE || gridH > MAX_GRID_SIZE)
+      throw new IllegalArgumentException("board must be 2x1 to " + MAX_GRID_SIZE + "x" + MAX_GRID_SIZE
+                                         + " cells, got " + gridW + "x" + gridH);
+    this.gridW = (int) gridW;
+    this.gridH = gridH;
+    this.roomW = roomW;
+    this.endless = rooms > 1;
+
+    walls      = new WallEdges(this.gridW, gridH);
+    pathfinder = new Pathfinder(walls);
+    items      = new ItemGrid(this.gridW, gridH);
+    boardItems = new ItemGrid(this.gridW, gridH);
+
+    long cells = (long) roomW * gridH;      // counts are per room
+    totalWalls    = (int) Math.max(1, cells / 2);
+    totalPrizes   = (int) Math.max(1, cells * 3 / 40);
+    totalTraps    = (int) Math.max(1, cells / 8);
+    totalPowerups = (int) (cells / 20);
+  }
+
+  public int getGridW() { return gridW; }
+  public int getGridH() { return gridH; }
+
+  public boolean isEndless() { return endless; }
+
+  /** Columns per room (the grid width unless endless). */
+  public int getRoomW()      { return roomW; }
+
+  /** World index of the room in the grid's first columns (0 unless endless). */
+  public long getFirstRoom() { return firstRoom; }
+
+  /** The player's column counted from the start of the run. */
+  public long getWorldCol()  { return firstRoom * roomW + col; }
+
+  public int getTrapVal()  { return trapVal; }
+  public int getPrizeVal() { return prizeVal; }
+
+  /** Take the per-action score values from the config. */
+  public void setScoreConfig(ScoreConfig c)
+  {
+    prizeVal   = c.prizeVal;
+    trapVal    = c.trapVal;
+    endVal     = c.endVal;
+    offGridVal = c.offGridVal;
+    hitWallVal = c.hitWallVal;
+  }
+
+  /** Reseed board generation; the same seed and settings give the same board. */
+  public void setSeed(long seed) { rand.setSeed(seed); }
+
+  /** Who hears about wall hits, prizes, game end... (GameEventListener.NONE for silence). */
+  public void setEventListener(GameEventListener listener) { events = listener; }
+
+  public GameEventListener getEventListener() { return events; }
+
+  /** No messages (simulations, benchmarks), or console messages on System.out again. */
+  public void setQuiet(boolean quiet) { setOut(quiet ? null : System.out); }
+
+  /** Print messages to out as they happen (null for none). */
+  public void setOut(PrintStream out)
+  {
+    events = (out == null) ? GameEventListener.NONE : new ConsoleEvents(out, true);
+  }
+
+  /** Told which cells changed after every visible state change (e.g. GameGUI). */
+  public void setChangeListener(BoardChangeListener listener) { changeListener = listener; }
+
+  private void changed()
+  {
+    if (changeListener != null) changeListener.boardChanged();
+  }
+
+  private void changed(int w, int h)
+  {
+    if (changeListener != null) changeListener.cellChanged(w, h);
+  }
+
+  /**
+   * Generate a new random board and put the player back on the start cell.
+   * Walls are regenerated until the exit column is reachable from the start.
+   * In endless mode this starts a new run: a world seed is drawn and the
+   * first WINDOW_ROOMS rooms are generated.
+   * @throws IllegalStateException if the item counts do not fit in a room,
+   *         or no solvable wall layout turns up
+   */
+  public void createBoard()
+  {
+    long t0 = System.nanoTime();
+    long needed = (long) totalTraps + totalPrizes + totalPowerups;
+    long cells  = (long) roomW * gridH;
+    if (needed > cells)
+      throw new IllegalStateException(totalTraps + " traps + " + totalPrizes + " prizes + "
+          + totalPowerups + " powerups need " + needed + " cells, board has " + cells);
+
+    if (endless)
+    {
+      worldSeed = rand.nextLong();
+      fillWindow(0);
+    }
+    else
+    {
+      items.clear();
+      placeItems(0, rand);
+
+      int attempts = 0;
+      do
+      {
+        if (++attempts > MAX_WALL_ATTEMPTS) throw noLayout();
+        createWalls(0, rand);
+      }
+      while (!pathfinder.isSolvable());
+
+      items.seal();
+      boardItems.copyFrom(items);
+    }
+
+    col = 0;
+    row = 0;
+    playerSteps = 0;
+    changed();
+    GameMetrics.METRICS.createBoard.recordSince(t0);
+  }
+
+  /**
+   * Load a ready-made board (e.g. a BoardPack level) and put the player back on
+   * the start cell. Designed levels are taken as they are, solvable or not.
+   * @throws IllegalArgumentException if the board is not gridW x gridH
+   */
+  public void createBoard(BoardSource source)
+  {
+    if (endless) throw new IllegalStateException("endless runs generate their own rooms");
+    if (source.gridW() != gridW || source.gridH() != gridH)
+      throw new IllegalArgumentException("board is " + source.gridW() + "x" + source.gridH()
+                                         + ", engine is " + gridW + "x" + gridH);
+    long t0 = System.nanoTime();
+    walls.clear();
+    items.clear();
+    source.fill(walls, items);
+    items.seal();
+    boardItems.copyFrom(items);
+
+    col = 0;
+    row = 0;
+    playerSteps = 0;
+    changed();
+    GameMetrics.METRICS.createBoard.recordSince(t0);
+  }
+
+  /** Move by (dx,dy) cells. Returns 0 on success, a penalty if off grid or walled. */
+  public int movePlayer(int dx, int dy)
+  {
+    int newCol = col + dx;
+    int newRow = row + dy;
+
+    playerSteps++;
+
+    if ((newCol < 0 || newCol >= gridW) || (newRow < 0 || newRow >= gridH))
+    {
+      GameMetrics.METRICS.offGrid.increment();
+      events.offGrid();
+      return -offGridVal;
+    }
+
+    // one bit test per cell edge crossed
+    if (walls.blocks(col, row, dx, dy))
+      return wallHit();
+
+    int oldCol = col, oldRow = row;
+    col = newCol;
+    row = newRow;
+    changed(oldCol, oldRow);
+    changed(newCol, newRow);
+    if (endless) slide();
+    return 0;
+  }
+
+  private int wallHit() {
+    GameMetrics.METRICS.wallHits.increment();
+    events.wallHit();
+    return -hitWallVal;
+  }
+
+  /** Check trap at offset (0,0) = current tile; or one cell in cardinal directions. */
+  public boolean isTrap(int dx, int dy)
+  {
+    int cell = cellAt(col + dx, row + dy);
+    return cell >= 0 && items.get(cell) == ItemGrid.TRAP;
+  }
+
+  /**
+   * Clear a trap at player + (dx,dy). Returns 0 if success, -trapVal if none.
+   * Caller decides how to score stepping on traps or detrap bonuses.
+   */
+  public int springTrap(int dx, int dy)
+  {
+    if (takeItem(cellAt(col + dx, row + dy), ItemGrid.TRAP))
+    {
+      GameMetrics.METRICS.trapsSprung.increment();
+      return 0; // success (no score change here)
+    }
+    events.noTrapToSpring(trapVal);
+    return -trapVal;
+  }
+
+  /**
+   * Disarm a trap in range (current tile or cardinal-adjacent).
+   * Returns +trapVal if disarmed, else -trapVal.
+   */
+  public int disarmNearbyTrap()
+  {
+    for (int[] off : DISARM_OFFSETS)
+      if (takeItem(cellAt(col + off[0], row + off[1]), ItemGrid.TRAP))
+        return +trapVal;
+    return -trapVal;
+  }
+
+  /**
+   * Pick up a powerup on the player's current tile.
+   * @return true if a powerup was collected
+   */
+  public boolean pickupPowerup()
+  {
+    if (!takeItem(cellAt(col, row), ItemGrid.POWERUP)) return false;
+    GameMetrics.METRICS.powerups.increment();
+    return true;
+  }
+
+  public int pickupPrize()
+  {
+    if (takeItem(cellAt(col, row), ItemGrid.PRIZE))
+    {
+      GameMetrics.METRICS.prizes.increment();
+      events.prizeCollected(prizeVal);
+      return prizeVal;
+    }
+    events.noPrize(prizeVal);
+    return -prizeVal;
+  }
+
+  public int getSteps() { return playerSteps; }
+
+  // board parameters (with the seed, enough to regenerate a board)
+  public int getPrizeCount()    { return totalPrizes; }
+  public int getTrapCount()     { return totalTraps; }
+  public int getWallCount()     { return totalWalls; }
+  public int getPowerupCount()  { return totalPowerups; }
+
+  public void setPrizes(int p)   { totalPrizes   = Math.max(1, p); }
+  public void setTraps(int t)    { totalTraps    = Math.max(1, t); }
+  public void setWalls(int w)    { totalWalls    = Math.max(1, w); }
+  public void setPowerups(int n) { totalPowerups = Math.max(0, n); }
+
+  public int replay()
+  {
+    int win = playerAtEnd();
+
+    if (firstRoom != 0) fillWindow(0);      // endless: back to the first rooms, from their seeds
+    else items.copyFrom(boardItems);
+    roomChanges.clear();                    // endless: rooms beyond the window come back untouched too
+
+    col = 0;
+    row = 0;
+    playerSteps = 0;
+    changed();
+    return win;
+  }
+
+  public int endGame()
+  {
+    return playerAtEnd();
+  }
+
+  /* ---------- cell index ---------- */
+
+  /** Row-major index of cell (w,h), or -1 if off the grid. */
+  private int cellAt(int w, int h)
+  {
+    if (w < 0 || h < 0 || w >= gridW || h >= gridH) return -1;
+    return h * gridW + w;
+  }
+
+  /** Remove the item of this kind from the cell; false if there is none. */
+  private boolean takeItem(int cell, int kind)
+  {
+    if (cell < 0 || items.get(cell) != kind) return false;
+    items.set(cell, ItemGrid.NONE);
+    changed(cell % gridW, cell / gridW);
+    return true;
+  }
+
+  /* ---------- read-only state for views ---------- */
+
+  public int getPlayerCol() { return col; }
+  public int getPlayerRow() { return row; }
+
+  /** Live item kind (ItemGrid.NONE/PRIZE/TRAP/POWERUP) at cell (w,h). */
+  public int getItem(int w, int h) { return items.get(w, h); }
+
+  /** Shortest paths, distance fields and nearest-item queries for this board. */
+  public Pathfinder getPathfinder() { return pathfinder; }
+
+  /** Live items; read-only for callers. */
+  public ItemGrid getItems()        { return items; }
+
+  /** Items as the board was created (what replay restores); read-only for callers. */
+  public ItemGrid getBoardItems()   { return boardItems; }
+
+  /** Live wall edges; also the compact wall format for saving/sending boards. */
+  public WallEdges getWalls()      { return walls; }
+
+  /* ---------- unique placement helpers ---------- */
+
+  /** Items of the room starting at column x0 (cleared beforehand). */
+  private void placeItems(int x0, Random r)
+  {
+    // one sampler for all items, so no two share a cell
+    CellSampler free = new CellSampler(roomW * gridH, totalTraps + totalPrizes + totalPowerups, r);
+    createTrapsUnique(free, x0);
+    createPrizesUnique(free, x0);
+    createPowerupsUnique(free, x0);
+  }
+
+  /** Grid cell of the room's k-th cell (row-major within the room); k itself on a classic board. */
+  private int roomCell(int x0, int k)
+  {
+    return (k / roomW) * gridW + x0 + k % roomW;
+  }
+
+  private void createPrizesUnique(CellSampler free, int x0)
+  {
+    for (int i = 0; i < totalPrizes; i++)
+      items.set(roomCell(x0, free.next()), ItemGrid.PRIZE);
+  }
+
+  private void createTrapsUnique(CellSampler free, int x0)
+  {
+    for (int i = 0; i < totalTraps; i++)
+      items.set(roomCell(x0, free.next()), ItemGrid.TRAP);
+  }
+
+  private void createPowerupsUnique(CellSampler free, int x0)
+  {
+    for (int i = 0; i < totalPowerups; i++)
+      items.set(roomCell(x0, free.next()), ItemGrid.POWERUP);
+  }
+
+  /* ---------- other generators ---------- */
+
+  /** Walls of the room starting at column x0 (the whole board on a classic one). */
+  private void createWalls(int x0, Random r)
+  {
+    if (roomW == gridW) walls.clear();
+    else walls.clearColumns(x0, roomW);
+    for (int i = 0; i < totalWalls; i++)
+    {
+      int h = r.nextInt(gridH);
+      int w = x0 + r.nextInt(roomW);
+
+      // duplicates just set the same bit again
+      if (r.nextInt(2) == 0)
+        walls.addVertical(w, h);      // right edge of (w,h)
+      else
+        walls.addHorizontal(w, h);    // bottom edge of (w,h)
+    }
+  }
+
+  private IllegalStateException noLayout()
+  {
+    return new IllegalStateException("no solvable layout with " + totalWalls + " walls on "
+        + roomW + "x" + gridH + " after " + MAX_WALL_ATTEMPTS + " attempts");
+  }
+
+  /* ---------- endless rooms ---------- */
+
+  /** Generate rooms first .. first+WINDOW_ROOMS-1 into the grid. */
+  private void fillWindow(long first)
+  {
+    firstRoom = first;
+    roomChanges.clear();
+    for (int slot = 0; slot < WINDOW_ROOMS; slot++) createRoom(slot, first + slot);
+    items.seal();
+    boardItems.copyFrom(items);
+  }
+
+  /**
+   * Generate world room `room` into the grid's slot-th room, the same every
+   * time (its own seed). Walls are redrawn until the room can be crossed
+   * inside itself from any row of its first column to any row of its last,
+   * with an opening on its right edge, so every run of rooms is passable.
+   */
+  private void createRoom(int slot, long room)
+  {
+    int x0 = slot * roomW;
+    roomRand.setSeed(Seeds.mix(worldSeed, room));
+    items.clearColumns(x0, roomW);
+    placeItems(x0, roomRand);
+
+    int attempts = 0;
+    do
+    {
+      if (++attempts > MAX_WALL_ATTEMPTS) throw noLayout();
+      createWalls(x0, roomRand);
+    }
+    while (!crossable(x0));
+  }
+
+  /**
+   * Keep the player in the window's inner rooms: on entering the last room
+   * the first is evicted and the next one generated, and walking back into
+   * the first room brings back the evicted one (unless it is room 0).
+   */
+  private void slide()
+  {
+    int dir = (col >= gridW - roomW) ? 1 : (col < roomW && firstRoom > 0) ? -1 : 0;
+    if (dir == 0) return;
+
+    int evicted = (dir > 0) ? 0 : WINDOW_ROOMS - 1;
+    saveChanges(evicted, firstRoom + evicted);
+
+    int kept = gridW - roomW;
+    int from = (dir > 0) ? roomW : 0;
+    int to   = (dir > 0) ? 0 : roomW;
+    walls.copyColumns(from, to, kept);
+    items.copyColumns(items, from, to, kept);
+    boardItems.copyColumns(boardItems, from, to, kept);
+    firstRoom += dir;
+    col -= dir * roomW;
+
+    int slot = (dir > 0) ? WINDOW_ROOMS - 1 : 0;
+    createRoom(slot, firstRoom + slot);
+    boardItems.copyColumns(items, slot * roomW, slot * roomW, roomW);
+    restoreChanges(slot, firstRoom + slot);
+    items.seal();
+    boardItems.seal();
+    changed();
+  }
+
+  /**
+   * Before the room in slot leaves the window, remember every cell whose item
+   * differs from the room as generated (boardItems), so its coins cannot be
+   * collected again by walking out and back in.
+   */
+  private void saveChanges(int slot, long room)
+  {
+    int x0 = slot * roomW;
+    int[] delta = null;
+    int n = 0;
+    for (int s = boardItems.nextLive(0); s >= 0; s = boardItems.nextLive(s + 1))
+    {
+      int cell = boardItems.cellOf(s), w = cell % gridW;
+      int now = items.get(cell);
+      if (w < x0 || w >= x0 + roomW || now == boardItems.kindOf(s)) continue;
+      if (delta == null) delta = new int[8];
+      else if (n == delta.length) delta = Arrays.copyOf(delta, n * 2);
+      delta[n++] = ((cell / gridW) * roomW + w - x0) << 2 | now;
+    }
+    if (n == 0) roomChanges.remove(room);
+    else roomChanges.put(room, Arrays.copyOf(delta, n));
+  }
+
+  /** Reapply saveChanges' delta to room, just regenerated into slot. */
+  private void restoreChanges(int slot, long room)
+  {
+    int[] delta = roomChanges.get(room);
+    if (delta == null) return;
+    for (int d : delta) items.set(roomCell(slot * roomW, d >>> 2), d & 3);
+  }
+
+  /** See createRoom: the room at column x0 is crossable by itself. */
+  private boolean crossable(int x0)
+  {
+    int last = x0 + roomW - 1;
+    boolean door = false;
+    for (int h = 0; h < gridH && !door; h++) door = !walls.hasVertical(last, h);
+    if (!door) return false;
+
+    // BFS over the room's own cells (local index h*roomW + c) from its top-left
+    int n = roomW * gridH;
+    if (roomSeen == null)
+    {
+      roomSeen = new boolean[n];
+      roomQueue = new int[n];
+    }
+    Arrays.fill(roomSeen, false);
+    roomSeen[0] = true;
+    int head = 0, tail = 0;
+    roomQueue[tail++] = 0;
+    while (head < tail)
+    {
+      int k = roomQueue[head++];
+      int c = k % roomW, h = k / roomW, w = x0 + c;
+      if (c + 1 < roomW && !walls.hasVertical(w, h))       tail = reach(k + 1, tail);
+      if (c > 0 && !walls.hasVertical(w - 1, h))           tail = reach(k - 1, tail);
+      if (h + 1 < gridH && !walls.hasHorizontal(w, h))     tail = reach(k + roomW, tail);
+      if (h > 0 && !walls.hasHorizontal(w, h - 1))         tail = reach(k - roomW, tail);
+    }
+    for (int h = 0; h < gridH; h++)
+      if (!roomSeen[h*roomW] || !roomSeen[h*roomW + roomW - 1]) return false;
+    return true;
+  }
+
+  private int reach(int k, int tail)
+  {
+    if (roomSeen[k]) return tail;
+    roomSeen[k] = true;
+    roomQueue[tail] = k;
+    return tail + 1;
+  }
+
+  /**
+   * True if the player stands in the exit (last) column; in endless mode, the
+   * first room's last column or anywhere past it.
+   */
+  public boolean isAtEnd() { return getWorldCol() >= roomW - 1; }
+
+  /** Exit is the last column. */
+  private int playerAtEnd()
+  {
+    boolean escaped = isAtEnd();
+    int delta = escaped ? endVal : -endVal;
+    events.gameEnded(escaped, delta);
+    return delta;
+  }
+}
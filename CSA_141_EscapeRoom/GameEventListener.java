@@ -0,0 +1,41 @@
+/**
+ * What happened during a command, as typed events instead of console text
+ * - GameEngine and GameSession report here; ConsoleEvents prints the classic messages
+ * - Every method defaults to doing nothing, so NONE (headless / bulk runs) costs
+ *   an empty call and no strings are ever built for it
+ * - Called on the thread running the command
+ */
+public interface GameEventListener
+{
+  /** Ignores everything. */
+  GameEventListener NONE = new GameEventListener() {};
+
+  // movement
+  default void wallHit() {}
+  default void offGrid() {}
+
+  // prizes (value / penalty as scored by the engine)
+  default void prizeCollected(int value) {}
+  default void noPrize(int penalty) {}
+
+  // traps
+  /** Player landed on a trap. */
+  default void trapSprung(int penalty) {}
+  default void noTrapToSpring(int penalty) {}
+  /** Result of a find-trap command one cell away at (dx,dy). */
+  default void trapScan(int dx, int dy, boolean found) {}
+  default void trapDisarmed(int bonus) {}
+  default void noTrapInRange(int penalty) {}
+
+  // powerups
+  default void powerupGained(int steps) {}
+  default void powerupExpired() {}
+
+  // session
+  default void boardReset() {}
+  default void helpRequested(int timeLimitSeconds) {}
+  /** Run ended (quit, time up or replay); escaped if the player reached the exit column. */
+  default void gameEnded(boolean escaped, int scoreDelta) {}
+  /** End of one command: a good point to flush buffered output. */
+  default void commandDone() {}
+}
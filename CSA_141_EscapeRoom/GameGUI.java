@@ -1,435 +1,293 @@
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
-import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 
 import javax.swing.JPanel;
 import javax.swing.JFrame;
-
-import java.io.File;
-import javax.imageio.ImageIO;
-
-import java.util.Random;
-import java.util.Set;
-import java.util.HashSet;
+import javax.swing.SwingUtilities;
 
 /**
  * Game board (panel-based)
- * - Visible traps (trap.png, scaled)
- * - Powerups (power.png), coins (coin.png)
- * - Ensures coins, traps, powerups NEVER overlap cells
+ * - Swing view over a GameEngine, which owns all board state and rules
+ * - Shows at most an 8x5-cell viewport that scrolls with the player
+ * - Paints only immutable BoardSnapshots; the game loop calls publish() after each
+ *   command on the thread that owns the engine, so the EDT never reads live state
+ * - Repaints only the cells that differ from the last snapshot, unless the viewport scrolls
+ * - Grid + walls are pre-composited into one static layer (VolatileImage on screen),
+ *   rebuilt on a new board or a scroll; sprites are pre-scaled regions of one
+ *   compatible atlas image, so a paint is a handful of unscaled blits
+ * - Images come from SpriteAtlas (classpath, loaded in parallel, fail-fast);
+ *   the first painted frame is timed from JVM start into GameMetrics
  */
-public class GameGUI extends JPanel
+public class GameGUI extends JPanel implements BoardChangeListener
 {
   private static final long serialVersionUID = 141L;
 
-  private static final int WIDTH = 510;
-  private static final int HEIGHT = 360;
-  private static final int SPACE_SIZE = 60;
-  private static final int GRID_W = 8;
-  private static final int GRID_H = 5;
-  private static final int START_LOC_X = 15;
+  private static final int SPACE_SIZE = 60;     // pixels per cell
+  private static final int VIEW_COLS = 8;       // viewport, in cells
+  private static final int VIEW_ROWS = 5;
+  private static final int START_LOC_X = 15;    // player offset inside a cell
   private static final int START_LOC_Y = 15;
 
-  // player placement
-  private int x = START_LOC_X;
-  private int y = START_LOC_Y;
-
-  // images
-  private Image bgImage;
-  private Image prizeImage;
-  private Image trapImage;
-  private Image powerImage;
-  private Image player;
-
-  // player info
-  private Point playerLoc;
-  private int playerSteps;
-
-  // board elements
-  private int totalWalls;
-  private Rectangle[] walls;
-  private int totalPrizes;
-  private Rectangle[] prizes;
-  private int totalTraps;
-  private Rectangle[] traps;
-  private int totalPowerups;
-  private Rectangle[] powerups;
-
-  // scoring (penalties negative)
-  private int prizeVal   = 10;
-  private int trapVal    = 10; // -10 when stepped on; +10 when detrap succeeds
-  private int endVal     = 10;
-  private int offGridVal = 5;
-  private int hitWallVal = 5;
+  private final int viewCols;
+  private final int viewRows;
 
-  private JFrame frame;
+  // latest state to paint (written by the engine's thread, read on the EDT)
+  private volatile BoardSnapshot snapshot;
+  private volatile boolean engineDirty = true;   // engine changed since the last publish
+
+  // grid + pre-scaled sprites: traps/prizes 15x15, powerups 20x20, player 40x40
+  private final SpriteAtlas atlas;
+  private Image atlasImage;              // compatible copy, fetched on first paint
 
-  // track used cells for items (to avoid overlaps)
-  private final Set<Point> occupiedItemCells = new HashSet<>();
-  private final Random rand = new Random();
+  // background + walls for the current viewport
+  private VolatileImage staticLayer;     // on screen
+  private BufferedImage staticImage;     // offscreen / headless
+  private BoardSnapshot staticFor;       // snapshot the static layer was drawn from (EDT only)
 
-  public int getTrapVal()  { return trapVal; }
-  public int getPrizeVal() { return prizeVal; }
+  private final GameEngine engine;
+
+  private JFrame frame;
 
   public GameGUI()
   {
-    try { bgImage    = ImageIO.read(new File("grid.png"));  }
-    catch (Exception e) { System.err.println("Could not open file grid.png"); }
-    try { prizeImage  = ImageIO.read(new File("coin.png"));  }
-    catch (Exception e) { System.err.println("Could not open file coin.png"); }
-    try { trapImage   = ImageIO.read(new File("trap.png"));  }     // trap.png supported
-    catch (Exception e) { System.err.println("Could not open file trap.png"); }
-    try { powerImage  = ImageIO.read(new File("powerup.png")); }
-    catch (Exception e) { System.err.println("Could not open file powerup.png"); }
-    try { player      = ImageIO.read(new File("player.png")); }
-    catch (Exception e) { System.err.println("Could not open file player.png"); }
-
-    playerLoc = new Point(x, y);
-
-    frame = new JFrame();
-    frame.setTitle("EscapeRoom");
-    frame.setSize(WIDTH, HEIGHT);
-    frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    frame.add(this);
-    frame.setVisible(true);
-    frame.setResizable(false);
-
-    totalWalls    = 20;
-    totalPrizes   = 3;
-    totalTraps    = 5;
-    totalPowerups = 2;
-
-    setDoubleBuffered(true);
-    setFocusable(false);
+    this(new GameEngine());
   }
 
-  public void createBoard()
+  public GameGUI(GameEngine engine)
   {
-    traps    = new Rectangle[totalTraps];
-    prizes   = new Rectangle[totalPrizes];
-    walls    = new Rectangle[totalWalls];
-    powerups = new Rectangle[totalPowerups];
-
-    occupiedItemCells.clear();
-
-    createTrapsUnique();
-    createPrizesUnique();
-    createPowerupsUnique();
-    createWalls();
-
-    repaint();
+    this(engine, true);
   }
 
-  public int movePlayer(int incrx, int incry)
+  /**
+   * @param showFrame false for an offscreen panel (no JFrame), e.g. to
+   *                  paintComponent into a BufferedImage on a headless host
+   */
+  public GameGUI(GameEngine engine, boolean showFrame)
   {
-    int newX = x + incrx;
-    int newY = y + incry;
+    this.engine = engine;
+    viewCols = Math.min(VIEW_COLS, engine.getGridW());
+    viewRows = Math.min(VIEW_ROWS, engine.getGridH());
 
-    playerSteps++;
+    atlas = SpriteAtlas.get();           // throws if an asset is missing
+    GameMetrics.METRICS.assetsLoaded(atlas.loadNanos());
 
-    if ((newX < 0 || newX > WIDTH - SPACE_SIZE) || (newY < 0 || newY > HEIGHT - SPACE_SIZE))
+    if (showFrame)
     {
-      System.out.println("OFF THE GRID!");
-      return -offGridVal;
+      frame = new JFrame();
+      frame.setTitle("EscapeRoom");
+      frame.setSize(viewCols*SPACE_SIZE + 30, viewRows*SPACE_SIZE + 60);
+      frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+      frame.add(this);
+      frame.setVisible(true);
+      frame.setResizable(false);
     }
+    else setSize(viewCols*SPACE_SIZE, viewRows*SPACE_SIZE);
 
-    for (Rectangle r : walls)
-    {
-      int startX = (int) r.getX();
-      int endX   = (int) r.getX() + (int) r.getWidth();
-      int startY = (int) r.getY();
-      int endY   = (int) r.getY() + (int) r.getHeight();
-
-      if ((incrx > 0) && (x <= startX) && (startX <= newX) && (y >= startY) && (y <= endY))
-        return wallHit();
-      else if ((incrx < 0) && (x >= startX) && (startX >= newX) && (y >= startY) && (y <= endY))
-        return wallHit();
-      else if ((incry > 0) && (y <= startY && startY <= newY && x >= startX && x <= endX))
-        return wallHit();
-      else if ((incry < 0) && (y >= startY) && (startY >= newY) && (x >= startX) && (x <= endX))
-        return wallHit();
-    }
+    setDoubleBuffered(true);
+    setFocusable(false);
 
-    x = newX;
-    y = newY;
-    repaint();
-    return 0;
+    engine.setChangeListener(this);
+    publish();
   }
 
-  private int wallHit() {
-    System.out.println("A WALL IS IN THE WAY");
-    return -hitWallVal;
-  }
+  public GameEngine getEngine() { return engine; }
 
-  /** Check trap at offset (0,0) = current tile; or ±SPACE_SIZE in cardinal directions. */
-  public boolean isTrap(int newx, int newy)
-  {
-    double px = playerLoc.getX() + newx;
-    double py = playerLoc.getY() + newy;
+  /* ---------- snapshots + dirty-region repaint ---------- */
 
-    for (Rectangle r : traps)
-      if (r.getWidth() > 0 && r.contains(px, py)) return true;
-    return false;
-  }
+  // engine callbacks only note that a new snapshot is needed
+  public void cellChanged(int w, int h) { engineDirty = true; }
+  public void boardChanged()            { engineDirty = true; }
+
+  /** Latest published state. */
+  public BoardSnapshot getSnapshot() { return snapshot; }
 
   /**
-   * Clear a trap at player + (newx,newy). Returns 0 if success, -trapVal if none.
-   * Caller decides how to score stepping on traps or detrap bonuses.
+   * Take a snapshot of the engine and repaint the cells that differ from the
+   * previous one. Call only from the thread that owns the engine (GameLoop);
+   * does nothing if the engine has not changed.
    */
-  public int springTrap(int newx, int newy)
+  public void publish()
   {
-    double px = playerLoc.getX() + newx;
-    double py = playerLoc.getY() + newy;
-
-    for (Rectangle r : traps)
+    if (!engineDirty) return;
+    engineDirty = false;
+    BoardSnapshot prev = snapshot;
+    BoardSnapshot next = BoardSnapshot.following(engine, viewCols, viewRows);
+    snapshot = next;
+
+    if (!next.sameStatic(prev)) { repaint(); return; }   // new board or viewport scrolled
+    for (int h = 0; h < next.rows; h++)
+      for (int w = 0; w < next.cols; w++)
+        if (next.item(w, h) != prev.item(w, h)) repaintCell(w, h);
+    if (next.playerCol != prev.playerCol || next.playerRow != prev.playerRow)
     {
-      if (r.contains(px, py))
-      {
-        if (r.getWidth() > 0)
-        {
-          r.setSize(0, 0);
-          repaint();
-          return 0; // success (no score change here)
-        }
-      }
+      repaintCell(prev.playerCol - next.camCol, prev.playerRow - next.camRow);
+      repaintCell(next.playerCol - next.camCol, next.playerRow - next.camRow);
     }
-    System.out.println("THERE IS NO TRAP HERE TO SPRING");
-    return -trapVal;
   }
 
-  /**
-   * Disarm a trap in range (current tile or cardinal-adjacent).
-   * Returns +trapVal if disarmed, else -trapVal.
-   */
-  public int disarmNearbyTrap()
+  private void repaintCell(int vx, int vy)
   {
-    int s = SPACE_SIZE;
-    int[][] offsets = { {0,0}, {s,0}, {-s,0}, {0,s}, {0,-s} };
-
-    for (int[] off : offsets)
-    {
-      double px = playerLoc.getX() + off[0];
-      double py = playerLoc.getY() + off[1];
-
-      for (Rectangle r : traps)
-      {
-        if (r.getWidth() > 0 && r.contains(px, py))
-        {
-          r.setSize(0, 0);
-          repaint();
-          return +trapVal;
-        }
-      }
-    }
-    return -trapVal;
+    repaint(vx*SPACE_SIZE, vy*SPACE_SIZE, SPACE_SIZE, SPACE_SIZE);   // thread-safe, coalesced on the EDT
   }
 
-  /**
-   * Pick up a powerup on the player's current tile.
-   * @return true if a powerup was collected
+  /*
+   * ---------- engine pass-throughs (kept for existing callers, pixel offsets) ----------
+   * These run on the caller's thread, which must then be the only one using the engine.
    */
-  public boolean pickupPowerup()
-  {
-    if (powerups == null) return false;
-    double px = playerLoc.getX();
-    double py = playerLoc.getY();
-    for (Rectangle pw : powerups)
-    {
-      if (pw.getWidth() > 0 && pw.contains(px, py))
-      {
-        pw.setSize(0,0);
-        repaint();
-        return true;
-      }
-    }
-    return false;
-  }
 
-  public int pickupPrize()
-  {
-    double px = playerLoc.getX();
-    double py = playerLoc.getY();
+  public int getTrapVal()  { return engine.getTrapVal(); }
+  public int getPrizeVal() { return engine.getPrizeVal(); }
 
-    for (Rectangle p : prizes)
-    {
-      if (p.getWidth() > 0 && p.contains(px, py))
-      {
-        System.out.println("YOU PICKED UP A PRIZE!");
-        p.setSize(0, 0);
-        repaint();
-        return prizeVal;
-      }
-    }
-    System.out.println("OOPS, NO PRIZE HERE");
-    return -prizeVal;
-  }
+  public void createBoard()                    { engine.createBoard(); publish(); }
+  public void createBoard(BoardSource level)   { engine.createBoard(level); publish(); }
+  public int movePlayer(int incrx, int incry)  { long t0 = System.nanoTime(); int d = engine.movePlayer(incrx/SPACE_SIZE, incry/SPACE_SIZE); queried(t0); return d; }
+  public boolean isTrap(int newx, int newy)    { long t0 = System.nanoTime(); boolean t = engine.isTrap(newx/SPACE_SIZE, newy/SPACE_SIZE); queried(t0); return t; }
+  public int springTrap(int newx, int newy)    { long t0 = System.nanoTime(); int d = engine.springTrap(newx/SPACE_SIZE, newy/SPACE_SIZE); queried(t0); return d; }
+  public int disarmNearbyTrap()                { long t0 = System.nanoTime(); int d = engine.disarmNearbyTrap(); queried(t0); return d; }
+  public boolean pickupPowerup()               { long t0 = System.nanoTime(); boolean got = engine.pickupPowerup(); queried(t0); return got; }
+  public int pickupPrize()                     { long t0 = System.nanoTime(); int d = engine.pickupPrize(); queried(t0); return d; }
+  public int getSteps()                        { return engine.getSteps(); }
 
-  public int getSteps() { return playerSteps; }
+  public void setPrizes(int p)   { engine.setPrizes(p); }
+  public void setTraps(int t)    { engine.setTraps(t); }
+  public void setWalls(int w)    { engine.setWalls(w); }
+  public void setPowerups(int n) { engine.setPowerups(n); }
 
-  public void setPrizes(int p)   { totalPrizes   = Math.max(1, p); }
-  public void setTraps(int t)    { totalTraps    = Math.max(1, t); }
-  public void setWalls(int w)    { totalWalls    = Math.max(1, w); }
-  public void setPowerups(int n) { totalPowerups = Math.max(0, n); }
+  public int replay() { int win = engine.replay(); publish(); return win; }
 
-  public int replay()
+  /** Query metrics (GameMetrics.query), then repaint what the call changed. */
+  private void queried(long startNanos)
   {
-    int win = playerAtEnd();
-
-    if (prizes != null)
-      for (Rectangle p : prizes) p.setSize(SPACE_SIZE/3, SPACE_SIZE/3);
-    if (traps != null)
-      for (Rectangle t : traps) t.setSize(SPACE_SIZE/3, SPACE_SIZE/3);
-    if (powerups != null)
-      for (Rectangle pw : powerups) pw.setSize(SPACE_SIZE/3, SPACE_SIZE/3);
-
-    x = START_LOC_X;
-    y = START_LOC_Y;
-    playerSteps = 0;
-    repaint();
-    return win;
+    GameMetrics.METRICS.query.recordSince(startNanos);
+    publish();
   }
 
   public int endGame()
   {
-    int win = playerAtEnd();
+    int win = engine.endGame();
+    close();
+    return win;
+  }
+
+  /** Live countdown in the window title; safe to call from any thread (e.g. SessionClock). */
+  public void showTimeLeft(int seconds)
+  {
+    if (frame == null) return;
+    String title = "EscapeRoom - " + seconds + "s left";
+    SwingUtilities.invokeLater(() -> frame.setTitle(title));
+  }
+
+  /** Hide and release the frame; the engine stays usable. */
+  public void close()
+  {
+    engine.setChangeListener(null);
     setVisible(false);
     if (frame != null) frame.dispose();
-    return win;
   }
 
   @Override
   public void paintComponent(Graphics g)
   {
+    long t0 = System.nanoTime();
     super.paintComponent(g);
-    Graphics2D g2 = (Graphics2D) g;
-
-    // grid
-    if (bgImage != null) g.drawImage(bgImage, 0, 0, null);
-    else { g2.setPaint(new Color(245,245,245)); g2.fillRect(0,0,WIDTH,HEIGHT); }
-
-    // traps (visible, scaled to rect size)
-    if (traps != null)
-      for (Rectangle t : traps)
-        if (t.getWidth() > 0) {
-          int tx = (int) t.getX(), ty = (int) t.getY();
-          int tw = (int) t.getWidth(), th = (int) t.getHeight(); // typically 15x15
-          if (trapImage != null) g.drawImage(trapImage, tx, ty, tw, th, null);
-          else { g2.setPaint(Color.RED); g2.fillRect(tx, ty, tw, th); }
-        }
+    int s = SPACE_SIZE;
+    BoardSnapshot snap = snapshot;       // one consistent state for the whole paint
+    if (snap == null) return;
+    if (atlasImage == null) atlasImage = atlas.image(getGraphicsConfiguration());
 
-    // powerups (visible)
-    if (powerups != null)
-      for (Rectangle pw : powerups)
-        if (pw.getWidth() > 0) {
-          int px = (int) pw.getX(), py = (int) pw.getY();
-          int pwW = (int) pw.getWidth(), pwH = (int) pw.getHeight();
-          if (powerImage != null) g.drawImage(powerImage, px, py, pwW, pwH, null);
-          else { g2.setPaint(new Color(120, 0, 200)); g2.fillOval(px, py, pwW, pwH); }
-        }
+    // grid + walls
+    drawStaticLayer(g, snap);
 
-    // prizes
-    if (prizes != null)
-      for (Rectangle p : prizes)
-        if (p.getWidth() > 0) {
-          int px = (int) p.getX(), py = (int) p.getY();
-          int pw = (int) p.getWidth(), ph = (int) p.getHeight(); // 15x15
-          if (prizeImage != null) g.drawImage(prizeImage, px, py, pw, ph, null);
-          else { g2.setPaint(Color.YELLOW); g2.fillOval(px, py, pw, ph); }
+    // items under the repaint clip (traps/prizes 15x15, powerups 20x20)
+    int w0 = 0, h0 = 0, w1 = snap.cols, h1 = snap.rows;
+    Rectangle clip = g.getClipBounds();
+    if (clip != null)
+    {
+      w0 = Math.max(0, clip.x / s);
+      h0 = Math.max(0, clip.y / s);
+      w1 = Math.min(snap.cols, (clip.x + clip.width + s - 1) / s);
+      h1 = Math.min(snap.rows, (clip.y + clip.height + s - 1) / s);
+    }
+    for (int h = h0; h < h1; h++)
+      for (int w = w0; w < w1; w++)
+      {
+        int cx = w*s, cy = h*s;
+        switch (snap.item(w, h))
+        {
+          case ItemGrid.TRAP:    atlas.draw(g, atlasImage, SpriteAtlas.TRAP,    cx + 15, cy + 15); break;
+          case ItemGrid.POWERUP: atlas.draw(g, atlasImage, SpriteAtlas.POWERUP, cx + 12, cy + 12); break;
+          case ItemGrid.PRIZE:   atlas.draw(g, atlasImage, SpriteAtlas.PRIZE,   cx + 15, cy + 15); break;
+          default: break;
         }
-
-    // walls
-    if (walls != null)
-      for (Rectangle r : walls) { g2.setPaint(Color.BLACK); g2.fill(r); }
+      }
 
     // player
-    if (player != null) g.drawImage(player, x, y, 40, 40, null);
-    else { g2.setPaint(Color.BLUE); g2.fillOval(x, y, 40, 40); }
-
-    playerLoc.setLocation(x, y);
+    int x = (snap.playerCol - snap.camCol)*s + START_LOC_X;
+    int y = (snap.playerRow - snap.camRow)*s + START_LOC_Y;
+    atlas.draw(g, atlasImage, SpriteAtlas.PLAYER, x, y);
+    GameMetrics.METRICS.paint.recordSince(t0);
+    if (GameMetrics.METRICS.firstFrame())
+      System.err.println("first frame " + GameMetrics.METRICS.getFirstFrameMillis() + " ms after JVM start (assets "
+                         + GameMetrics.METRICS.getAssetLoadMillis() + " ms)");
   }
 
-  /* ---------- unique placement helpers ---------- */
-
-  private Point getUniqueFreeCell() {
-    // tries until it finds a (w,h) not used by any prize/trap/powerup
-    while (true) {
-      int h = rand.nextInt(GRID_H);
-      int w = rand.nextInt(GRID_W);
-      Point cell = new Point(w, h);
-      if (!occupiedItemCells.contains(cell)) {
-        occupiedItemCells.add(cell);
-        return cell;
-      }
-    }
-  }
+  /* ---------- static layer ---------- */
 
-  private void createPrizesUnique()
+  /** Blit the grid + walls layer, rebuilding it for a new board/viewport or if the accelerated copy was lost. */
+  private void drawStaticLayer(Graphics g, BoardSnapshot snap)
   {
-    int s = SPACE_SIZE;
-    for (int i = 0; i < totalPrizes; i++)
+    boolean staticDirty = !snap.sameStatic(staticFor);
+    int lw = viewCols*SPACE_SIZE, lh = viewRows*SPACE_SIZE;
+    GraphicsConfiguration gc = getGraphicsConfiguration();
+    if (gc == null)
     {
-      Point cell = getUniqueFreeCell();
-      int w = cell.x, h = cell.y;
-      prizes[i] = new Rectangle((w*s + 15), (h*s + 15), 15, 15);
+      if (staticImage == null) { staticImage = new BufferedImage(lw, lh, BufferedImage.TYPE_INT_RGB); staticDirty = true; }
+      if (staticDirty) { renderStatic(staticImage.createGraphics(), snap); staticFor = snap; }
+      g.drawImage(staticImage, 0, 0, null);
+      return;
     }
-  }
-
-  private void createTrapsUnique()
-  {
-    int s = SPACE_SIZE;
-    for (int i = 0; i < totalTraps; i++)
+    do
     {
-      Point cell = getUniqueFreeCell();
-      int w = cell.x, h = cell.y;
-      traps[i] = new Rectangle((w*s + 15), (h*s + 15), 15, 15);
-    }
-  }
+      int state = (staticLayer == null) ? VolatileImage.IMAGE_INCOMPATIBLE : staticLayer.validate(gc);
+      if (state == VolatileImage.IMAGE_INCOMPATIBLE)
+      {
+        if (staticLayer != null) staticLayer.flush();
+        staticLayer = gc.createCompatibleVolatileImage(lw, lh);
+        staticDirty = true;
+      }
+      else if (state == VolatileImage.IMAGE_RESTORED)
+        staticDirty = true;
 
-  private void createPowerupsUnique()
-  {
-    int s = SPACE_SIZE;
-    for (int i = 0; i < totalPowerups; i++)
-    {
-      Point cell = getUniqueFreeCell();
-      int w = cell.x, h = cell.y;
-      powerups[i] = new Rectangle((w*s + 12), (h*s + 12), 20, 20);
+      if (staticDirty) { renderStatic(staticLayer.createGraphics(), snap); staticFor = snap; staticDirty = false; }
+      g.drawImage(staticLayer, 0, 0, null);
     }
+    while (staticLayer.contentsLost());
   }
 
-  /* ---------- other generators ---------- */
-
-  private void createWalls()
+  private void renderStatic(Graphics2D g2, BoardSnapshot snap)
   {
     int s = SPACE_SIZE;
-    for (int i = 0; i < totalWalls; i++)
-    {
-      int h = rand.nextInt(GRID_H);
-      int w = rand.nextInt(GRID_W);
-
-      Rectangle r;
-      if (rand.nextInt(2) == 0)
-        r = new Rectangle((w*s + s - 5), h*s, 8, s);        // vertical
-      else
-        r = new Rectangle(w*s, (h*s + s - 5), s, 8);        // horizontal
-      walls[i] = r;
-    }
-  }
 
-  private int playerAtEnd()
-  {
-    double px = playerLoc.getX();
-    if (px > (WIDTH - 2*SPACE_SIZE))
-    {
-      System.out.println("YOU MADE IT!");
-      return endVal;
-    }
-    else
-    {
-      System.out.println("OOPS, YOU QUIT TOO SOON!");
-      return -endVal;
-    }
+    // grid (lines repeat every cell, so the image needs no scrolling)
+    g2.setPaint(new Color(245,245,245));
+    g2.fillRect(0, 0, viewCols*s, viewRows*s);
+    atlas.draw(g2, atlasImage, SpriteAtlas.GRID, 0, 0);
+
+    // walls in view (vertical = right edge of a cell, horizontal = bottom edge)
+    g2.setPaint(Color.BLACK);
+    for (int h = 0; h < snap.rows; h++)
+      for (int w = 0; w < snap.cols; w++)
+      {
+        int edges = snap.walls(w, h);
+        if ((edges & BoardSnapshot.WALL_RIGHT) != 0)  g2.fillRect(w*s + s - 5, h*s, 8, s);
+        if ((edges & BoardSnapshot.WALL_BOTTOM) != 0) g2.fillRect(w*s, h*s + s - 5, s, 8);
+      }
+    g2.dispose();
   }
 }
@@ -0,0 +1,103 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-writer game loop
+ * - One thread owns the session and its engine; commands are queued to it and
+ *   run in order, so engine queries never race with anything else
+ * - After each command the view (if any) is handed a new immutable BoardSnapshot;
+ *   painting reads only snapshots and never blocks game logic
+ * - Input threads submit and may wait on the result; nothing else touches the engine
+ */
+public class GameLoop implements AutoCloseable
+{
+  private final GameSession session;
+  private final GameGUI view;              // null when headless
+  private final ExecutorService writer;
+
+  public GameLoop(GameSession session, GameGUI view)
+  {
+    this.session = session;
+    this.view = view;
+    writer = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "EscapeRoom-loop");
+      t.setDaemon(true);
+      return t;
+    });
+    if (view != null) writer.execute(view::publish);
+  }
+
+  public GameSession getSession() { return session; }
+
+  /**
+   * Queue one command; the future holds session.isPlaying() after it.
+   * Commands still queued when the player quits or the time runs out are dropped.
+   */
+  public Future<Boolean> submit(Command command)
+  {
+    return writer.submit(() -> {
+      if (!session.isPlaying() || session.expired()) return false;
+      long t0 = System.nanoTime();
+      boolean playing = session.execute(command);
+      GameMetrics.METRICS.commandDone(command, t0, session);
+      if (view != null) view.publish();
+      return playing;
+    });
+  }
+
+  /** Queue a command and wait for it to finish (console output stays in order). */
+  public boolean execute(Command command)
+  {
+    return await(submit(command));
+  }
+
+  /** Run any other engine/session access on the loop thread and wait for its result. */
+  public <T> T call(Callable<T> task)
+  {
+    return await(writer.submit(() -> {
+      T result = task.call();
+      if (view != null) view.publish();
+      return result;
+    }));
+  }
+
+  /** Finish the queued commands and stop the loop thread. */
+  @Override
+  public void close()
+  {
+    writer.shutdown();
+    try
+    {
+      writer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Wait for a submitted command or task; its exception is rethrown unchecked. */
+  public static <T> T await(Future<T> f)
+  {
+    try
+    {
+      return f.get();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted waiting for the game loop", e);
+    }
+    catch (ExecutionException e)
+    {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IllegalStateException(cause);
+    }
+  }
+}
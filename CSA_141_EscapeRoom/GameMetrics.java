@@ -0,0 +1,161 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide game metrics, always on
+ * - Latency histograms: command dispatch (overall and per Command), GameGUI
+ *   queries, createBoard, GameServer session start (newGame), paintComponent
+ * - Counters: wall hits, off-grid moves, traps sprung, prizes, powerups
+ * - Gauges: steps and time left of the last session to run a command, active sessions
+ * - Startup: GUI asset load time and JVM uptime at the first painted frame
+ * - Recording is lock-free and allocation-free; register() publishes the
+ *   MBean, startDump() prints dump() periodically
+ */
+public final class GameMetrics implements GameMetricsMBean
+{
+  public static final GameMetrics METRICS = new GameMetrics();
+  public static final String OBJECT_NAME = "escaperoom:type=GameMetrics";
+
+  public final LatencyHistogram command     = new LatencyHistogram("command");
+  public final LatencyHistogram query       = new LatencyHistogram("query");
+  public final LatencyHistogram createBoard = new LatencyHistogram("createBoard");
+  public final LatencyHistogram newGame     = new LatencyHistogram("newGame");
+  public final LatencyHistogram paint       = new LatencyHistogram("paint");
+  private final LatencyHistogram[] perCommand = new LatencyHistogram[Command.values().length];
+
+  public final LongAdder wallHits   = new LongAdder();
+  public final LongAdder offGrid    = new LongAdder();
+  public final LongAdder trapsSprung = new LongAdder();
+  public final LongAdder prizes     = new LongAdder();
+  public final LongAdder powerups   = new LongAdder();
+
+  private volatile int steps;
+  private volatile int timeLeft;
+  private volatile int activeSessions;
+
+  private volatile long assetLoadNanos = -1;     // -1 until a GUI loads its assets
+  private volatile long firstFrameMillis = -1;   // JVM uptime at the first paint, -1 until then
+
+  private boolean registered;
+  private ScheduledFuture<?> dumper;
+
+  private GameMetrics()
+  {
+    for (Command c : Command.values())
+      perCommand[c.ordinal()] = new LatencyHistogram("cmd " + c.name().toLowerCase());
+  }
+
+  /**
+   * Record one dispatched command (null = unparsed input) that started at
+   * startNanos, and update the session gauges.
+   */
+  public void commandDone(Command c, long startNanos, GameSession session)
+  {
+    long nanos = System.nanoTime() - startNanos;
+    command.record(nanos);
+    if (c != null) perCommand[c.ordinal()].record(nanos);
+    steps = session.getEngine().getSteps();
+    timeLeft = session.timeLeft();
+  }
+
+  public void setActiveSessions(int n) { activeSessions = n; }
+
+  /* ---------- startup ---------- */
+
+  public void assetsLoaded(long nanos) { assetLoadNanos = nanos; }
+
+  /** Note a frame painted; true only for the first one of the process. */
+  public synchronized boolean firstFrame()
+  {
+    if (firstFrameMillis >= 0) return false;
+    firstFrameMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    return true;
+  }
+
+  /* ---------- JMX ---------- */
+
+  /** Register the MBean with the platform server (once; later calls do nothing). */
+  public synchronized void register()
+  {
+    if (registered) return;
+    try
+    {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(this, new ObjectName(OBJECT_NAME));
+      registered = true;
+    }
+    catch (JMException e)
+    {
+      System.err.println("could not register " + OBJECT_NAME + ": " + e);
+    }
+  }
+
+  /** Print dump() to out every period seconds (0 stops it). */
+  public synchronized void startDump(int periodSeconds, PrintStream out)
+  {
+    if (dumper != null) dumper.cancel(false);
+    dumper = (periodSeconds <= 0) ? null
+        : SessionClock.sharedScheduler().scheduleAtFixedRate(() -> out.println(dump()),
+              periodSeconds, periodSeconds, TimeUnit.SECONDS);
+  }
+
+  public long getCommandCount()          { return command.count(); }
+  public double getCommandP50Micros()    { return command.percentile(50) / 1e3; }
+  public double getCommandP99Micros()    { return command.percentile(99) / 1e3; }
+  public double getCommandP999Micros()   { return command.percentile(99.9) / 1e3; }
+  public double getCommandMaxMicros()    { return command.maxNanos() / 1e3; }
+  public double getQueryP99Micros()      { return query.percentile(99) / 1e3; }
+  public double getCreateBoardP99Micros() { return createBoard.percentile(99) / 1e3; }
+  public double getNewGameP99Micros()    { return newGame.percentile(99) / 1e3; }
+  public double getPaintP50Micros()      { return paint.percentile(50) / 1e3; }
+  public double getPaintP99Micros()      { return paint.percentile(99) / 1e3; }
+  public long getPaintCount()            { return paint.count(); }
+
+  public long getWallHits()        { return wallHits.sum(); }
+  public long getOffGridMoves()    { return offGrid.sum(); }
+  public long getTrapsSprung()     { return trapsSprung.sum(); }
+  public long getPrizesPickedUp()  { return prizes.sum(); }
+  public long getPowerupsUsed()    { return powerups.sum(); }
+
+  public int getSteps()            { return steps; }
+  public int getTimeLeftSeconds()  { return timeLeft; }
+  public int getActiveSessions()   { return activeSessions; }
+
+  public long getAssetLoadMillis()  { return assetLoadNanos < 0 ? -1 : assetLoadNanos / 1_000_000; }
+  public long getFirstFrameMillis() { return firstFrameMillis; }
+
+  public String dump()
+  {
+    StringBuilder sb = new StringBuilder("--- EscapeRoom metrics ---\n");
+    for (LatencyHistogram h : new LatencyHistogram[] { command, query, createBoard, newGame, paint })
+      sb.append(h.summary()).append('\n');
+    for (LatencyHistogram h : perCommand)
+      if (h.count() > 0) sb.append("  ").append(h.summary()).append('\n');
+    sb.append("wallHits=").append(getWallHits())
+      .append(" offGrid=").append(getOffGridMoves())
+      .append(" trapsSprung=").append(getTrapsSprung())
+      .append(" prizes=").append(getPrizesPickedUp())
+      .append(" powerups=").append(getPowerupsUsed()).append('\n')
+      .append("steps=").append(steps)
+      .append(" timeLeft=").append(timeLeft).append('s')
+      .append(" activeSessions=").append(activeSessions);
+    if (firstFrameMillis >= 0)
+      sb.append("\nassetLoad=").append(getAssetLoadMillis()).append("ms")
+        .append(" firstFrame=").append(firstFrameMillis).append("ms");
+    return sb.toString();
+  }
+
+  public void reset()
+  {
+    command.reset(); query.reset(); createBoard.reset(); newGame.reset(); paint.reset();
+    for (LatencyHistogram h : perCommand) h.reset();
+    wallHits.reset(); offGrid.reset(); trapsSprung.reset(); prizes.reset(); powerups.reset();
+  }
+}
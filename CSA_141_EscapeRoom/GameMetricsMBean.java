@@ -0,0 +1,40 @@
+/**
+ * JMX view of GameMetrics (escaperoom:type=GameMetrics)
+ * - Latencies are in microseconds, cumulative since start or the last reset()
+ */
+public interface GameMetricsMBean
+{
+  // latency
+  long getCommandCount();
+  double getCommandP50Micros();
+  double getCommandP99Micros();
+  double getCommandP999Micros();
+  double getCommandMaxMicros();
+  double getQueryP99Micros();
+  double getCreateBoardP99Micros();
+  double getNewGameP99Micros();
+  double getPaintP50Micros();
+  double getPaintP99Micros();
+  long getPaintCount();
+
+  // counters
+  long getWallHits();
+  long getOffGridMoves();
+  long getTrapsSprung();
+  long getPrizesPickedUp();
+  long getPowerupsUsed();
+
+  // gauges
+  int getSteps();
+  int getTimeLeftSeconds();
+  int getActiveSessions();
+
+  // startup (-1 until a GUI has loaded / painted)
+  long getAssetLoadMillis();
+  long getFirstFrameMillis();
+
+  /** Every histogram and counter, one per line. */
+  String dump();
+
+  void reset();
+}
@@ -0,0 +1,324 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-session EscapeRoom server
+ * - Each connection gets its own headless GameEngine + GameSession (own board,
+ *   score, Random and output stream) on its own thread, virtual where the JDK has them
+ * - Same text protocol as the console: one command per line, prompt + status back
+ * - Per-session time limit from a SessionClock on one shared scheduler; expiry
+ *   shuts the connection's input, so idle sessions end and free their thread
+ * - Connections beyond the session cap are told so and closed
+ * - Every board is seeded; with journal=dir each session is recorded to
+ *   dir/session-N.erj for Replayer (score audits, load-test traces)
+ * - With leaderboard=dir each result goes to a shared Leaderboard (as
+ *   "session-N") and the player is told their rank
+ * - New sessions take a pre-generated board from a BoardPool (pool=N boards,
+ *   0 = generate each board on the session's thread)
+ *
+ * Usage: java GameServer [key=value ...]
+ *   port=7141 | unix=/tmp/escaperoom.sock   max=10000   size=8x5   seconds=90   journal=dir
+ *   metrics=N   print GameMetrics every N seconds (always available over JMX)
+ *   leaderboard=dir   pool=256
+ */
+public class GameServer implements AutoCloseable
+{
+  public static final int DEFAULT_PORT = 7141;
+  public static final int DEFAULT_MAX_SESSIONS = 10000;
+
+  private final ServerSocketChannel server;
+  private final Path unixPath;                 // null for TCP
+  private final int maxSessions;
+  private final int gridW;
+  private final int gridH;
+  private final ScoreConfig cfg;
+  private volatile Path journalDir;            // null = no journals
+  private volatile Leaderboard leaderboard;    // null = results not kept
+  private volatile BoardPool boardPool;        // null = createBoard per session
+
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicLong sessionIds = new AtomicLong();
+  private final AtomicLong commands = new AtomicLong();
+
+  private GameServer(ServerSocketChannel server, Path unixPath, int maxSessions,
+                     int gridW, int gridH, ScoreConfig cfg)
+  {
+    this.server = server;
+    this.unixPath = unixPath;
+    this.maxSessions = maxSessions;
+    this.gridW = gridW;
+    this.gridH = gridH;
+    this.cfg = cfg;
+  }
+
+  /** Server on a local TCP port (0 = any free port). */
+  public static GameServer tcp(int port, int maxSessions, int gridW, int gridH, ScoreConfig cfg) throws IOException
+  {
+    ServerSocketChannel ch = ServerSocketChannel.open();
+    ch.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+    return new GameServer(ch, null, maxSessions, gridW, gridH, cfg);
+  }
+
+  /** Server on a Unix domain socket; a stale socket file is replaced. */
+  public static GameServer unix(Path path, int maxSessions, int gridW, int gridH, ScoreConfig cfg) throws IOException
+  {
+    Files.deleteIfExists(path);
+    ServerSocketChannel ch = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    ch.bind(UnixDomainSocketAddress.of(path), 1024);
+    return new GameServer(ch, path, maxSessions, gridW, gridH, cfg);
+  }
+
+  /** Record each new session to dir/session-N.erj (null to stop). */
+  public void setJournalDir(Path dir) { journalDir = dir; }
+
+  /** Submit every finished session's result to board (null to stop). */
+  public void setLeaderboard(Leaderboard board) { leaderboard = board; }
+
+  /** Start new sessions on boards from pool, sized as this server's (null to generate inline). */
+  public void setBoardPool(BoardPool pool) { boardPool = pool; }
+
+  public String address() throws IOException { return server.getLocalAddress().toString(); }
+  public int activeSessions()                { return active.get(); }
+  public long commandsRun()                  { return commands.get(); }
+
+  /** Accept connections until close(); each session runs on its own thread. */
+  public void serve() throws IOException
+  {
+    while (server.isOpen())
+    {
+      SocketChannel ch;
+      try
+      {
+        ch = server.accept();
+      }
+      catch (IOException e)
+      {
+        if (!server.isOpen()) return;     // closed under us
+        throw e;
+      }
+      if (active.incrementAndGet() > maxSessions)
+      {
+        active.decrementAndGet();
+        reject(ch);
+        continue;
+      }
+      GameMetrics.METRICS.setActiveSessions(active.get());
+      long id = sessionIds.incrementAndGet();
+      Threads.newThread("EscapeRoom-session-" + id, () -> runSession(ch, id)).start();
+    }
+  }
+
+  private void reject(SocketChannel ch)
+  {
+    try (ch)
+    {
+      PrintStream out = new PrintStream(Channels.newOutputStream(ch), true, StandardCharsets.UTF_8);
+      out.println("Server full (" + maxSessions + " sessions). Try again later.");
+    }
+    catch (IOException e)
+    {
+      // client already gone
+    }
+  }
+
+  /** One connection, start to finish; only this thread touches its engine and session. */
+  private void runSession(SocketChannel ch, long id)
+  {
+    ReplayJournal journal = null;
+    try (ch)
+    {
+      BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(ch), StandardCharsets.UTF_8));
+      PrintStream out = new PrintStream(new BufferedOutputStream(Channels.newOutputStream(ch)), false, StandardCharsets.UTF_8);
+
+      long start = System.nanoTime();
+      GameEngine game = new GameEngine(gridW, gridH);
+      GameSession session = new GameSession(game, cfg.copy());
+      session.setOut(out);
+      BoardPool pool = boardPool;
+      long seed;
+      if (pool != null)
+      {
+        seed = pool.newGame(game);           // waits if a burst has drained the pool
+      }
+      else
+      {
+        seed = ThreadLocalRandom.current().nextLong();
+        game.setSeed(seed);
+        game.createBoard();
+      }
+      GameMetrics.METRICS.newGame.recordSince(start);
+      Path dir = journalDir;
+      if (dir != null)
+      {
+        journal = new ReplayJournal(dir.resolve("session-" + id + ".erj"), seed, game, session.getConfig());
+        session.setJournal(journal);
+      }
+
+      out.println("Welcome to EscapeRoom!");
+      out.println("Get to the other side, avoid walls & traps, collect coins. Type 'help' for commands.");
+      GameSession.printHelp(out, session.getConfig().timeLimitSeconds);
+
+      SessionClock clock = new SessionClock(session, () -> shutdownInput(ch), null);
+      try
+      {
+        boolean playing = true;
+        while (playing)
+        {
+          out.print("Enter command (time left " + Math.max(0, session.timeLeft()) + "s):");
+          out.flush();
+          Command command = null;
+          while (command == null)
+          {
+            String line = in.readLine();
+            if (line == null) { playing = false; break; }      // hung up, or timer shut the input
+            command = Command.parse(line);
+            if (command == null) { out.print("Invalid input. Please try again\n>"); out.flush(); }
+          }
+          if (command == null) break;
+          if (session.expired()) break;        // lines pipelined before the deadline arrive after it
+
+          long t0 = System.nanoTime();
+          playing = session.execute(command);
+          GameMetrics.METRICS.commandDone(command, t0, session);
+          commands.incrementAndGet();
+          session.printStatus();
+        }
+      }
+      finally
+      {
+        clock.close();
+      }
+
+      if (session.millisLeft() <= 0) out.println("\nTime's up!");
+      int score = session.finish();
+      out.println("Final score=" + score);
+      out.println("Total steps=" + game.getSteps());
+      rank(out, "session-" + id, score, game.getSteps(), session, seed);
+      out.flush();
+    }
+    catch (IOException e)
+    {
+      // connection dropped; the session just ends
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    finally
+    {
+      closeJournal(journal);
+      GameMetrics.METRICS.setActiveSessions(active.decrementAndGet());
+    }
+  }
+
+  /** Record the result on the leaderboard, if there is one, and tell the player their rank. */
+  private void rank(PrintStream out, String player, int score, int steps, GameSession session, long seed)
+  {
+    Leaderboard board = leaderboard;
+    if (board == null) return;
+    int millisUsed = (int) Math.max(0, session.getConfig().timeLimitSeconds * 1000L - session.millisLeft());
+    try
+    {
+      Leaderboard.Entry entry = board.submit(player, score, steps, millisUsed, seed);
+      out.println("Rank " + board.rank(entry.score) + " of " + board.size());
+    }
+    catch (UncheckedIOException e)
+    {
+      System.err.println("could not record " + player + " on the leaderboard: " + e);
+    }
+  }
+
+  private static void closeJournal(ReplayJournal journal)
+  {
+    if (journal == null) return;
+    try
+    {
+      journal.close();
+    }
+    catch (IOException e)
+    {
+      System.err.println("could not write journal: " + e);
+    }
+  }
+
+  private static void shutdownInput(SocketChannel ch)
+  {
+    try
+    {
+      ch.shutdownInput();
+    }
+    catch (IOException e)
+    {
+      // already closed
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    server.close();
+    if (unixPath != null) Files.deleteIfExists(unixPath);
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    int port = DEFAULT_PORT, max = DEFAULT_MAX_SESSIONS;
+    int gridW = GameEngine.DEFAULT_GRID_W, gridH = GameEngine.DEFAULT_GRID_H;
+    String unix = null, journal = null, leaderboard = null;
+    int metricsPeriod = 0, pool = BoardPool.DEFAULT_CAPACITY;
+    ScoreConfig cfg = new ScoreConfig();
+
+    for (String a : args)
+    {
+      int eq = a.indexOf('=');
+      if (eq < 0) throw new IllegalArgumentException("expected key=value, got " + a);
+      String key = a.substring(0, eq), val = a.substring(eq + 1);
+      switch (key) {
+        case "port":    port = Integer.parseInt(val); break;
+        case "unix":    unix = val; break;
+        case "max":     max = Integer.parseInt(val); break;
+        case "seconds": cfg.timeLimitSeconds = Integer.parseInt(val); break;
+        case "journal": journal = val; break;
+        case "metrics": metricsPeriod = Integer.parseInt(val); break;
+        case "leaderboard": leaderboard = val; break;
+        case "pool":    pool = Integer.parseInt(val); break;
+        case "size": {
+          String[] wh = val.split("x");
+          gridW = Integer.parseInt(wh[0]);
+          gridH = Integer.parseInt(wh[1]);
+          break;
+        }
+        default: throw new IllegalArgumentException("unknown option " + key);
+      }
+    }
+
+    GameServer server = (unix != null)
+        ? unix(Paths.get(unix), max, gridW, gridH, cfg)
+        : tcp(port, max, gridW, gridH, cfg);
+    if (journal != null) server.setJournalDir(Files.createDirectories(Paths.get(journal)));
+    if (leaderboard != null) server.setLeaderboard(Leaderboard.open(Paths.get(leaderboard)));
+    if (pool > 0) server.setBoardPool(new BoardPool(gridW, gridH, pool));
+    GameMetrics.METRICS.register();
+    GameMetrics.METRICS.startDump(metricsPeriod, System.out);
+    System.out.println("EscapeRoom server on " + server.address() + " (max " + max + " sessions, "
+                       + (Threads.virtual() ? "virtual" : "platform") + " threads)");
+    server.serve();
+  }
+}
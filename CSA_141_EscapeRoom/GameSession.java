@@ -0,0 +1,300 @@
+import java.io.PrintStream;
+
+/**
+ * One player's run of EscapeRoom over a GameEngine
+ * - Score, powerup (double coins) state and the session timer
+ * - execute(command) applies one console command exactly as EscapeRoom.main does,
+ *   so scripted drivers and benchmarks share the same rules
+ * - Commands are parsed once into a Command; the rules switch on that, not on strings
+ * - Outcomes are reported to a GameEventListener (shared with the engine);
+ *   by default a buffered ConsoleEvents flushed once per command
+ */
+public class GameSession
+{
+  // === Timer config ===
+  public static final int TIME_LIMIT_SECONDS = 90;
+
+  // === Powerup config ===
+  public static final int POWERUP_STEPS_DURATION = 20;  // lasts this many player steps
+
+  public static final int TRAP_PEN = 10;                // -10 when you STEP on a trap
+
+  /** Every exact command alias (Command also accepts unambiguous prefixes). */
+  public static final String[] VALID_COMMANDS = Command.allAliases();
+
+  private final GameEngine game;
+  private final ScoreConfig cfg;
+  private final int m = 1;               // grid step, in cells
+  private PrintStream out = System.out;  // console, or a server connection (status lines)
+  private GameEventListener events;
+  private ReplayJournal journal;         // null unless recording
+
+  private int score = 0;
+
+  // powerup state
+  private boolean doubleCoinsActive = false;
+  private int doubleCoinsStepsLeft = 0;
+
+  private final long tStart = System.currentTimeMillis();
+  private final long tStartNanos = System.nanoTime();
+  private boolean play = true;
+
+  public GameSession(GameEngine game)
+  {
+    this(game, new ScoreConfig());
+  }
+
+  /** Session scored by cfg; the engine's score values are set from it too. */
+  public GameSession(GameEngine game, ScoreConfig cfg)
+  {
+    this(game, cfg, new ConsoleEvents(System.out));
+  }
+
+  /** Session reporting to listener from the start (GameEventListener.NONE for a quiet one). */
+  public GameSession(GameEngine game, ScoreConfig cfg, GameEventListener listener)
+  {
+    this.game = game;
+    this.cfg = cfg;
+    game.setScoreConfig(cfg);
+    setEventListener(listener);
+  }
+
+  /** Report this session's and its engine's events to listener. */
+  public void setEventListener(GameEventListener listener)
+  {
+    events = listener;
+    game.setEventListener(listener);
+  }
+
+  public GameEventListener getEventListener() { return events; }
+
+  /** Send status lines and console messages to out (one stream per connection). */
+  public void setOut(PrintStream out)
+  {
+    this.out = out;
+    setEventListener(new ConsoleEvents(out));
+  }
+
+  /** Silence this session and its engine (bots, simulations), or print to the console again. */
+  public void setQuiet(boolean quiet)
+  {
+    setEventListener(quiet ? GameEventListener.NONE : new ConsoleEvents(out));
+  }
+
+  public static void printHelp() {
+    printHelp(System.out);
+  }
+
+  public static void printHelp(PrintStream out) {
+    printHelp(out, TIME_LIMIT_SECONDS);
+  }
+
+  /** Command help, quoting a time limit of timeLimitSeconds. */
+  public static void printHelp(PrintStream out, int timeLimitSeconds) {
+    out.println("\nCommands:");
+    out.println("  Movement:  right|r, left|l, up|u, down|d");
+    out.println("  Jump:      jr (jump right), jl, ju, jd  (jumps over 1 space; cannot jump through walls)");
+    out.println("  Prize:     pickup | p  (Collect $)  [doubles while powerup active]");
+    out.println("  Traps:     ftr/ftl/ftu/ftd (Find Trap 1 space away), detrap | dt (disarm trap under/adjacent)");
+    out.println("  Other:     replay   (reset same board)");
+    out.println("             help|?   (this menu)");
+    out.println("             quit|q   (Finish / Fail Finish)");
+    out.println("  Any unambiguous prefix also works (e.g. 'ri' = right, 'pick' = pickup)");
+    out.println("             (Timer auto-ends at " + timeLimitSeconds + "s)\n");
+  }
+
+  /** Record every command and its score change from now on (null to stop). */
+  public void setJournal(ReplayJournal journal) { this.journal = journal; }
+
+  public GameEngine getEngine()     { return game; }
+  public ScoreConfig getConfig()    { return cfg; }
+  public int getScore()             { return score; }
+  public boolean isPlaying()        { return play; }
+  public boolean isDoubleCoins()    { return doubleCoinsActive; }
+  public int getDoubleCoinsSteps()  { return doubleCoinsStepsLeft; }
+
+  /** Whole seconds left on the session timer (may be negative once expired). */
+  public int timeLeft()
+  {
+    return cfg.timeLimitSeconds - (int)((System.currentTimeMillis() - tStart)/1000);
+  }
+
+  /** Milliseconds left on the session timer (may be negative once expired). */
+  public long millisLeft()
+  {
+    return cfg.timeLimitSeconds * 1000L - (System.currentTimeMillis() - tStart);
+  }
+
+  /** Whether the time limit has passed; one nanoTime compare, safe from any thread. */
+  public boolean expired()
+  {
+    return System.nanoTime() - tStartNanos >= cfg.timeLimitSeconds * 1_000_000_000L;
+  }
+
+  /**
+   * Apply one command by alias or unambiguous prefix; unknown words only
+   * run the end-of-command bookkeeping, as the string switch used to.
+   * @return false once the player has quit
+   */
+  public boolean execute(String input)
+  {
+    return execute(Command.parse(input));
+  }
+
+  /**
+   * Apply one command (null = no command).
+   * @return false once the player has quit
+   */
+  public boolean execute(Command command)
+  {
+    int stepsBefore = game.getSteps();
+    int scoreBefore = score;
+
+    if (command != null) switch (command) {
+      /* ---------------- Movement (single step) ---------------- */
+      case RIGHT: step(m,0);  break;
+      case LEFT:  step(-m,0); break;
+      case UP:    step(0,-m); break;
+      case DOWN:  step(0,m);  break;
+
+      /* ---------------- Jump (two steps) ---------------- */
+      case JUMP_RIGHT: jump(m,0);  break;
+      case JUMP_LEFT:  jump(-m,0); break;
+      case JUMP_UP:    jump(0,-m); break;
+      case JUMP_DOWN:  jump(0,m);  break;
+
+      /* ---------------- Prizes ---------------- */
+      case PICKUP: {
+        int prize = game.pickupPrize();
+        if (prize > 0 && doubleCoinsActive) {
+          // double coins -> add the same amount again
+          prize += prize;
+        }
+        score += prize;
+
+        // allow pickup to grab a powerup if you're on one
+        if (game.pickupPowerup()) powerupGained();
+        break;
+      }
+
+      /* ---------------- Trap tools ---------------- */
+      case FIND_TRAP_RIGHT: {
+        boolean t = game.isTrap(m,0);
+        events.trapScan(m, 0, t);
+        break;
+      }
+      case FIND_TRAP_LEFT: {
+        boolean t = game.isTrap(-m,0);
+        events.trapScan(-m, 0, t);
+        break;
+      }
+      case FIND_TRAP_UP: {
+        boolean t = game.isTrap(0,-m);
+        events.trapScan(0, -m, t);
+        break;
+      }
+      case FIND_TRAP_DOWN: {
+        boolean t = game.isTrap(0,m);
+        events.trapScan(0, m, t);
+        break;
+      }
+      case DETRAP: {
+        int delta = game.disarmNearbyTrap();
+        if (delta > 0) events.trapDisarmed(delta);
+        else events.noTrapInRange(delta);
+        score += delta;
+        break;
+      }
+
+      /* ---------------- Session control ---------------- */
+      case REPLAY: {
+        score += game.replay();
+        events.boardReset();
+        // powerup resets on replay
+        doubleCoinsActive = false;
+        doubleCoinsStepsLeft = 0;
+        // timer DOES NOT reset
+        break;
+      }
+      case HELP: {
+        events.helpRequested(cfg.timeLimitSeconds);
+        break;
+      }
+      case QUIT: {
+        play = false;
+        break;
+      }
+    }
+
+    // auto-pickup powerup when you MOVE onto it (movement/jump cases)
+    if (game.pickupPowerup()) powerupGained();
+
+    // burn down powerup by steps taken this command
+    int stepsAfter = game.getSteps();
+    int stepDelta = Math.max(0, stepsAfter - stepsBefore);
+    if (doubleCoinsActive && stepDelta > 0) {
+      doubleCoinsStepsLeft -= stepDelta;
+      if (doubleCoinsStepsLeft <= 0) {
+        doubleCoinsActive = false;
+        doubleCoinsStepsLeft = 0;
+        events.powerupExpired();
+      }
+    }
+    if (journal != null) journal.record(command, score - scoreBefore);
+    events.commandDone();
+    return play;
+  }
+
+  /** Status line with timer, printed after each command. */
+  public void printStatus()
+  {
+    int timeLeft = timeLeft();
+    out.println("score=" + score + " | steps=" + game.getSteps() +
+                       (doubleCoinsActive ? (" | x2 coins (" + doubleCoinsStepsLeft + " steps left)") : "") +
+                       " | " + Math.max(0, timeLeft) + "s left");
+  }
+
+  /** Add the end-of-game bonus/penalty and return the final score. */
+  public int finish()
+  {
+    play = false;
+    int end = game.endGame();
+    score += end;
+    if (journal != null) journal.recordFinish(end);
+    events.commandDone();
+    return score;
+  }
+
+  /* ---------- movement helpers ---------- */
+
+  private void step(int dx, int dy)
+  {
+    int delta = game.movePlayer(dx, dy);
+    score += delta;
+    if (delta == 0 && game.isTrap(0,0)) trapVictim();   // landed on a trap tile
+  }
+
+  /** Two steps; the second only if the first succeeded. Only the landing tile can spring a trap. */
+  private void jump(int dx, int dy)
+  {
+    int d1 = game.movePlayer(dx, dy); score += d1;
+    if (d1 == 0) {
+      int d2 = game.movePlayer(dx, dy); score += d2;
+      if (d2 == 0 && game.isTrap(0,0)) trapVictim();
+    }
+  }
+
+  private void trapVictim()
+  {
+    events.trapSprung(cfg.trapPenalty);
+    score -= cfg.trapPenalty;
+    game.springTrap(0,0);              // clear the trap
+  }
+
+  private void powerupGained()
+  {
+    doubleCoinsActive = true;
+    doubleCoinsStepsLeft = cfg.powerupSteps;
+    events.powerupGained(cfg.powerupSteps);
+  }
+}
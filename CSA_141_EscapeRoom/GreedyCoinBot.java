@@ -0,0 +1,6 @@
+/** Walks the shortest path to the nearest coin or powerup, ignoring traps; then to the exit. */
+public class GreedyCoinBot extends PathBot
+{
+  protected int targetKinds() { return (1 << ItemGrid.PRIZE) | (1 << ItemGrid.POWERUP); }
+  protected int avoidKinds()  { return 0; }
+}
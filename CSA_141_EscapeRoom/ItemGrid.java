@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * Board items packed at 2 bits per cell (row-major)
+ * - NONE, PRIZE, TRAP or POWERUP; at most one item per cell
+ * - 4096x4096 cells fit in 4 MB
+ * - Live count per kind, kept up to date on every set
+ * - seal() adds a struct-of-arrays index of the board's items (sorted cell,
+ *   kind, alive bitset): scans visit only live items, and taking an item
+ *   just clears its alive bit
+ */
+public class ItemGrid
+{
+  public static final int NONE    = 0;
+  public static final int PRIZE   = 1;
+  public static final int TRAP    = 2;
+  public static final int POWERUP = 3;
+
+  private final int gridW;
+  private final int gridH;
+  private final long[] bits;
+  private final int[] counts = new int[4];      // live items per kind (NONE unused)
+
+  // item index, shared (read-only) by grids copied from the same sealed board
+  private int[] itemCells;      // ascending
+  private byte[] itemKinds;
+  private long[] alive;         // one bit per item slot (this grid's own)
+
+  public ItemGrid(int gridW, int gridH)
+  {
+    this.gridW = gridW;
+    this.gridH = gridH;
+    bits = new long[(int) (((long) gridW * gridH + 31) >>> 5)];
+  }
+
+  public int getGridW() { return gridW; }
+  public int getGridH() { return gridH; }
+
+  /** Item kind in row-major cell. */
+  public int get(int cell)
+  {
+    return (int) (bits[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+  }
+
+  public int get(int w, int h) { return get(h*gridW + w); }
+
+  public void set(int cell, int kind)
+  {
+    int shift = (cell & 31) << 1;
+    int i = cell >>> 5;
+    int old = (int) (bits[i] >>> shift) & 3;
+    if (old == kind) return;
+    bits[i] = (bits[i] & ~(3L << shift)) | ((long) kind << shift);
+    counts[old]--;
+    counts[kind]++;
+
+    if (itemCells != null)
+    {
+      int slot = Arrays.binarySearch(itemCells, cell);
+      if (slot >= 0 && (kind == NONE || kind == itemKinds[slot]))
+      {
+        if (kind == NONE) alive[slot >>> 6] &= ~(1L << slot);
+        else alive[slot >>> 6] |= 1L << slot;
+      }
+      else dropIndex();           // an item the index does not know about
+    }
+  }
+
+  public void clear()
+  {
+    Arrays.fill(bits, 0L);
+    Arrays.fill(counts, 0);
+    dropIndex();
+  }
+
+  /**
+   * Overwrite with another grid of the same size (one array copy). A sealed
+   * source's index is shared and its alive bits copied, so replay costs two copies.
+   */
+  public void copyFrom(ItemGrid other)
+  {
+    System.arraycopy(other.bits, 0, bits, 0, bits.length);
+    System.arraycopy(other.counts, 0, counts, 0, counts.length);
+    if (other.itemCells == null) { dropIndex(); return; }
+    if (itemCells != other.itemCells)
+    {
+      itemCells = other.itemCells;
+      itemKinds = other.itemKinds;
+      alive = other.alive.clone();
+    }
+    else System.arraycopy(other.alive, 0, alive, 0, alive.length);
+  }
+
+  /**
+   * Copy columns [from, from+cols) of src onto columns [to, to+cols) of this
+   * grid (src may be this grid, ranges overlapping). Call seal() again after.
+   */
+  public void copyColumns(ItemGrid src, int from, int to, int cols)
+  {
+    for (int h = 0; h < gridH; h++)
+    {
+      int row = h*gridW;
+      if (src != this || to < from) for (int i = 0; i < cols; i++)       set(row + to + i, src.get(row + from + i));
+      else                           for (int i = cols - 1; i >= 0; i--) set(row + to + i, src.get(row + from + i));
+    }
+  }
+
+  /** Remove every item of columns [w0, w0+cols). */
+  public void clearColumns(int w0, int cols)
+  {
+    for (int h = 0; h < gridH; h++)
+      for (int i = h*gridW + w0, end = i + cols; i < end; i++) set(i, NONE);
+  }
+
+  /** Length of the packed word array (32 cells per word). */
+  public int wordCount() { return bits.length; }
+
+  /** Copy the packed 2-bit words into dst at offset (BatchEnv packs many boards this way). */
+  public void copyWordsTo(long[] dst, int offset)
+  {
+    System.arraycopy(bits, 0, dst, offset, bits.length);
+  }
+
+  /** Live items of this kind. */
+  public int count(int kind) { return counts[kind]; }
+
+  /** Live items of any kind. */
+  public int count() { return counts[PRIZE] + counts[TRAP] + counts[POWERUP]; }
+
+  /* ---------- item index ---------- */
+
+  /**
+   * Index the current items (one pass over the grid). Call once a board is
+   * placed; later removals keep it live, placing a new item drops it.
+   */
+  public void seal()
+  {
+    int n = count();
+    int[] cells = new int[n];
+    byte[] kinds = new byte[n];
+    int k = 0;
+    for (int i = 0; i < bits.length; i++)
+      for (long word = bits[i]; word != 0; )
+      {
+        int shift = Long.numberOfTrailingZeros(word) & ~1;    // start of the 2-bit field
+        cells[k] = (i << 5) + (shift >>> 1);
+        kinds[k++] = (byte) ((word >>> shift) & 3);
+        word &= ~(3L << shift);
+      }
+    itemCells = cells;
+    itemKinds = kinds;
+    alive = new long[(n + 63) >>> 6];
+    for (int s = 0; s < n; s++) alive[s >>> 6] |= 1L << s;
+  }
+
+  /** True while the item index is valid (see seal). */
+  public boolean isSealed() { return itemCells != null; }
+
+  /** Next live item slot >= slot, or -1; only on a sealed grid. */
+  public int nextLive(int slot)
+  {
+    int wi = slot >>> 6;
+    if (slot < 0 || wi >= alive.length) return -1;
+    long word = alive[wi] & (-1L << slot);
+    while (word == 0)
+    {
+      if (++wi == alive.length) return -1;
+      word = alive[wi];
+    }
+    return (wi << 6) + Long.numberOfTrailingZeros(word);
+  }
+
+  public int cellOf(int slot) { return itemCells[slot]; }
+  public int kindOf(int slot) { return itemKinds[slot]; }
+
+  private void dropIndex()
+  {
+    itemCells = null;
+    itemKinds = null;
+    alive = null;
+  }
+}
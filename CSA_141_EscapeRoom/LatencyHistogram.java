@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in the HDR style (log-linear buckets)
+ * - Exact below 16 ns; above, 8 buckets per power of two (within 12.5%)
+ * - record() is a few atomic adds: no locks, no allocation, safe from any thread
+ * - Values are nanoseconds; counts are cumulative until reset()
+ */
+public class LatencyHistogram
+{
+  private static final int SUB_BITS = 3;
+  private static final int SUB = 1 << SUB_BITS;                    // buckets per power of two
+  private static final int LINEAR = 2 * SUB;                       // exact buckets 0..15
+  private static final int BUCKETS = LINEAR + (63 - SUB_BITS - 1) * SUB;
+
+  private final String name;
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public LatencyHistogram(String name) { this.name = name; }
+
+  public String getName() { return name; }
+
+  /** Record one latency; negative values count as 0. */
+  public void record(long nanos)
+  {
+    if (nanos < 0) nanos = 0;
+    counts.incrementAndGet(bucket(nanos));
+    total.increment();
+    sum.add(nanos);
+    long m = max.get();
+    while (nanos > m && !max.compareAndSet(m, nanos)) m = max.get();
+  }
+
+  /** Record the time since startNanos (a System.nanoTime() reading). */
+  public void recordSince(long startNanos) { record(System.nanoTime() - startNanos); }
+
+  public long count()     { return total.sum(); }
+  public long maxNanos()  { return max.get(); }
+
+  public double meanNanos()
+  {
+    long n = total.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Upper bound of the bucket holding the p-th percentile (0..100), in ns;
+   * 0 if nothing has been recorded.
+   */
+  public long percentile(double p)
+  {
+    long n = total.sum();
+    if (n == 0) return 0;
+    long rank = Math.max(1, (long) Math.ceil(p / 100.0 * n));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++)
+    {
+      seen += counts.get(i);
+      if (seen >= rank) return Math.min(upper(i), max.get());
+    }
+    return max.get();
+  }
+
+  public void reset()
+  {
+    for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+    total.reset();
+    sum.reset();
+    max.set(0);
+  }
+
+  /** One-line summary in microseconds. */
+  public String summary()
+  {
+    return String.format("%-20s count=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                         name, count(), meanNanos() / 1e3, percentile(50) / 1e3,
+                         percentile(99) / 1e3, percentile(99.9) / 1e3, maxNanos() / 1e3);
+  }
+
+  /* ---------- bucket math ---------- */
+
+  private static int bucket(long v)
+  {
+    if (v < LINEAR) return (int) v;
+    int exp = 63 - Long.numberOfLeadingZeros(v);                  // >= SUB_BITS + 1
+    int mantissa = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+    return LINEAR + (exp - SUB_BITS - 1) * SUB + mantissa;
+  }
+
+  /** Largest value that lands in bucket i. */
+  private static long upper(int i)
+  {
+    if (i < LINEAR) return i;
+    int exp = (i - LINEAR) / SUB + SUB_BITS + 1;
+    int mantissa = (i - LINEAR) % SUB;
+    long lower = (long) (SUB + mantissa) << (exp - SUB_BITS);
+    return lower + (1L << (exp - SUB_BITS)) - 1;
+  }
+}
@@ -0,0 +1,550 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent high-score table
+ * - Every result (player, score, steps, time used, seed) is one 64-byte record
+ *   in an append-only log. A writer reserves its slot with one atomic increment
+ *   and writes it in place, so concurrent sessions never wait on each other
+ * - In memory: the best `capacity` results in a concurrent skip list, a count
+ *   per score for ranks, and each player's best result; lock-free or per key
+ * - Ranks are by score, ties sharing a place; top() breaks ties by fewer
+ *   steps, then less time, then the earlier result
+ * - A snapshot of the index, tagged with the log records it covers, is folded
+ *   from the log on the leaderboard's own background thread every SNAPSHOT_EVERY
+ *   results and on close(); startup loads it and reads only the records after it
+ * - Records carry a CRC32, so a write torn by a crash is skipped on recovery
+ *
+ * Files dir/scores.log and dir/scores.snap, little-endian throughout.
+ *
+ * Usage: java Leaderboard dir=scores [top=10] [player=name] [bench=N]
+ */
+public class Leaderboard implements AutoCloseable
+{
+  public static final int LOG_MAGIC  = 0x314c4245;     // "EBL1" little-endian
+  public static final int SNAP_MAGIC = 0x31534245;     // "EBS1"
+  public static final short VERSION = 1;
+  public static final int RECORD_BYTES = 64;           // the log header takes one record slot
+  public static final int MAX_NAME_BYTES = 31;
+  public static final int DEFAULT_CAPACITY = 10000;
+  public static final int SNAPSHOT_EVERY = 1 << 14;
+
+  private static final int CRC_OFFSET = RECORD_BYTES - 4;
+  private static final int READ_RECORDS = 1024;        // log records per read while recovering
+
+  /** Better first: higher score, fewer steps, less time, earlier result. */
+  public static final Comparator<Entry> ORDER = (a, b) -> {
+    if (a.score != b.score) return Integer.compare(b.score, a.score);
+    if (a.steps != b.steps) return Integer.compare(a.steps, b.steps);
+    if (a.millisUsed != b.millisUsed) return Integer.compare(a.millisUsed, b.millisUsed);
+    return Long.compare(a.seq, b.seq);
+  };
+
+  /** One finished session. */
+  public static final class Entry
+  {
+    public final long seq;            // position in the log
+    public final String player;       // at most MAX_NAME_BYTES of UTF-8
+    public final int score, steps, millisUsed;
+    public final long seed;           // board seed, to replay or audit the run
+
+    Entry(long seq, String player, int score, int steps, int millisUsed, long seed)
+    {
+      this.seq = seq;
+      this.player = player;
+      this.score = score;
+      this.steps = steps;
+      this.millisUsed = millisUsed;
+      this.seed = seed;
+    }
+
+    @Override
+    public String toString()
+    {
+      return player + " score=" + score + " steps=" + steps + " time=" + millisUsed + "ms seed=" + seed;
+    }
+  }
+
+  private final Path snapFile;
+  private final FileChannel log;
+  private final Index index;
+  private final AtomicLong nextSeq;
+  private final long recoveredEnd;          // log slots below were settled at open (gaps there are dead)
+  private final Set<Long> deadSlots = ConcurrentHashMap.newKeySet();   // slots whose submit failed
+  private final long recoveryNanos;
+
+  private final Object snapshotLock = new Object();
+  private Index snapshot;                   // state of the snapshot file, read on first use (guarded by snapshotLock)
+  private final AtomicBoolean snapshotQueued = new AtomicBoolean();
+  private final ExecutorService snapshotter;   // background snapshots, one at a time, off the timer thread
+
+  /** Open or create the leaderboard in dir, keeping the top DEFAULT_CAPACITY results. */
+  public static Leaderboard open(Path dir) throws IOException
+  {
+    return new Leaderboard(dir, DEFAULT_CAPACITY);
+  }
+
+  public static Leaderboard open(Path dir, int capacity) throws IOException
+  {
+    return new Leaderboard(dir, capacity);
+  }
+
+  private Leaderboard(Path dir, int capacity) throws IOException
+  {
+    if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+    long t0 = System.nanoTime();
+    Files.createDirectories(dir);
+    snapFile = dir.resolve("scores.snap");
+    log = FileChannel.open(dir.resolve("scores.log"), StandardOpenOption.CREATE,
+                           StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try
+    {
+      if (log.size() == 0) writeHeader();
+      else checkHeader();
+
+      index = Files.exists(snapFile) ? Index.read(snapFile, capacity) : new Index(capacity);
+
+      // a torn last record still takes its slot; recovery skips it
+      long slots = (log.size() - 1) / RECORD_BYTES;
+      recoveredEnd = Math.max(slots, index.covered);
+      fold(index, index.covered, recoveredEnd);
+      nextSeq = new AtomicLong(recoveredEnd);
+    }
+    catch (IOException | RuntimeException e)
+    {
+      log.close();
+      throw e;
+    }
+    recoveryNanos = System.nanoTime() - t0;
+    snapshotter = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "EscapeRoom-leaderboard-snapshot");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /* ---------- submissions ---------- */
+
+  /**
+   * Record one result; safe from any number of threads at once. The name is
+   * cut to MAX_NAME_BYTES of UTF-8.
+   * @throws UncheckedIOException if the log cannot be written; the result is
+   *         not recorded, and its slot is marked dead so snapshots skip it
+   */
+  public Entry submit(String player, int score, int steps, int millisUsed, long seed)
+  {
+    Entry e = new Entry(nextSeq.getAndIncrement(), clip(player), score, steps, millisUsed, seed);
+    ByteBuffer buf = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    encode(e, buf);
+    buf.flip();
+    long pos = (e.seq + 1) * RECORD_BYTES;
+    try
+    {
+      while (buf.hasRemaining()) log.write(buf, pos + buf.position());
+    }
+    catch (IOException ex)
+    {
+      deadSlots.add(e.seq);
+      throw new UncheckedIOException(ex);
+    }
+    index.add(e);
+
+    if ((e.seq + 1) % SNAPSHOT_EVERY == 0 && snapshotQueued.compareAndSet(false, true))
+    {
+      try
+      {
+        snapshotter.execute(this::backgroundSnapshot);
+      }
+      catch (RejectedExecutionException ex)
+      {
+        // closing: close() takes the last snapshot
+      }
+    }
+    return e;
+  }
+
+  /* ---------- queries ---------- */
+
+  /** The best n results, best first (at most the capacity). */
+  public List<Entry> top(int n)
+  {
+    List<Entry> out = new ArrayList<>(Math.min(n, index.capacity));
+    for (Entry e : index.top.keySet())
+    {
+      if (out.size() >= n) break;
+      out.add(e);
+    }
+    return out;
+  }
+
+  /** 1 + the results with a higher score. */
+  public long rank(int score)
+  {
+    return index.rank(score);
+  }
+
+  /** Rank of the player's best result, or -1 if they have none. */
+  public long rank(String player)
+  {
+    Entry best = index.players.get(clip(player));
+    return best == null ? -1 : index.rank(best.score);
+  }
+
+  /** The player's best result, or null. */
+  public Entry best(String player)
+  {
+    return index.players.get(clip(player));
+  }
+
+  /** Results recorded, ever. */
+  public long size() { return index.total.sum(); }
+
+  /** Time open() spent loading the snapshot and reading the log after it. */
+  public long recoveryNanos() { return recoveryNanos; }
+
+  /* ---------- snapshots ---------- */
+
+  /**
+   * Bring the snapshot file up to the log records written so far. Folds log
+   * records into the snapshot's own index, so it never waits for submitters;
+   * it stops at a slot still being written and picks it up next time.
+   */
+  public void snapshot() throws IOException
+  {
+    synchronized (snapshotLock)
+    {
+      if (snapshot == null)      // off the startup path: open() reads the file once, for the live index
+        snapshot = Files.exists(snapFile) ? Index.read(snapFile, index.capacity) : new Index(index.capacity);
+      long from = snapshot.covered;
+      long to = fold(snapshot, from, nextSeq.get());
+      if (to == from && Files.exists(snapFile)) return;
+      snapshot.covered = to;
+      Path tmp = snapFile.resolveSibling(snapFile.getFileName() + ".tmp");
+      snapshot.write(tmp);
+      Files.move(tmp, snapFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+
+  private void backgroundSnapshot()
+  {
+    snapshotQueued.set(false);
+    try
+    {
+      snapshot();
+    }
+    catch (IOException | UncheckedIOException e)
+    {
+      System.err.println("could not write leaderboard snapshot: " + e);
+    }
+  }
+
+  /** Let a background snapshot finish, snapshot, then flush and close the log. */
+  @Override
+  public void close() throws IOException
+  {
+    snapshotter.shutdown();
+    try
+    {
+      snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    try
+    {
+      snapshot();
+      log.force(true);
+    }
+    finally
+    {
+      log.close();
+    }
+  }
+
+  /* ---------- log ---------- */
+
+  private void writeHeader() throws IOException
+  {
+    ByteBuffer buf = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    buf.putInt(LOG_MAGIC).putShort(VERSION).position(RECORD_BYTES).flip();
+    while (buf.hasRemaining()) log.write(buf, buf.position());
+  }
+
+  private void checkHeader() throws IOException
+  {
+    ByteBuffer buf = ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN);
+    while (buf.hasRemaining() && log.read(buf, buf.position()) >= 0) { }
+    buf.flip();
+    if (buf.remaining() < 6 || buf.getInt() != LOG_MAGIC)
+      throw new IOException("not a leaderboard log");
+    short version = buf.getShort();
+    if (version != VERSION)
+      throw new IOException("leaderboard log version " + version + ", expected " + VERSION);
+  }
+
+  /**
+   * Add log records [from, to) to into. Bad records below recoveredEnd were
+   * torn by a crash, and dead slots (failed submits) never will be written,
+   * so both are skipped; any other bad one is still being written, so the
+   * fold stops there.
+   * @return the first record not added
+   */
+  private long fold(Index into, long from, long to) throws IOException
+  {
+    ByteBuffer buf = ByteBuffer.allocate(READ_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    for (long seq = from; seq < to; )
+    {
+      int n = (int) Math.min(READ_RECORDS, to - seq);
+      buf.clear().limit(n * RECORD_BYTES);
+      long pos = (seq + 1) * RECORD_BYTES;
+      while (buf.hasRemaining() && log.read(buf, pos + buf.position()) >= 0) { }
+      buf.flip();
+      for (int i = 0; i < n; i++, seq++)
+      {
+        Entry e = buf.limit() >= (i + 1) * RECORD_BYTES ? decode(buf, i * RECORD_BYTES) : null;
+        if (e != null && e.seq == seq) into.add(e);
+        else if (seq >= recoveredEnd && !deadSlots.remove(seq)) return seq;
+      }
+    }
+    return to;
+  }
+
+  private static void encode(Entry e, ByteBuffer buf)
+  {
+    int start = buf.position();
+    byte[] name = e.player.getBytes(StandardCharsets.UTF_8);
+    buf.putLong(e.seq).putInt(e.score).putInt(e.steps).putInt(e.millisUsed).putLong(e.seed)
+       .put((byte) name.length).put(name);
+    buf.position(start + CRC_OFFSET);
+    buf.putInt(crc(buf, start));
+  }
+
+  /** Entry in the record at offset, or null if its CRC does not match (torn or never written). */
+  private static Entry decode(ByteBuffer buf, int offset)
+  {
+    if (buf.getInt(offset + CRC_OFFSET) != crc(buf, offset)) return null;
+    int len = Math.min(buf.get(offset + 28) & 0xff, MAX_NAME_BYTES);
+    byte[] name = new byte[len];
+    buf.get(offset + 29, name);
+    return new Entry(buf.getLong(offset), new String(name, StandardCharsets.UTF_8),
+                     buf.getInt(offset + 8), buf.getInt(offset + 12), buf.getInt(offset + 16),
+                     buf.getLong(offset + 20));
+  }
+
+  private static int crc(ByteBuffer buf, int offset)
+  {
+    CRC32 crc = new CRC32();
+    crc.update(buf.duplicate().limit(offset + CRC_OFFSET).position(offset));
+    return (int) crc.getValue();
+  }
+
+  /** name cut to MAX_NAME_BYTES of UTF-8, on a character boundary. */
+  private static String clip(String name)
+  {
+    if (name == null) name = "";
+    if (name.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES) return name;
+    int end = name.length();
+    while (name.substring(0, end).getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES)
+      end = name.offsetByCodePoints(end, -1);
+    return name.substring(0, end);
+  }
+
+  /* ---------- index ---------- */
+
+  /** Top results, counts per score and players' bests; concurrent adds, no global lock. */
+  private static final class Index
+  {
+    final int capacity;
+    final ConcurrentSkipListMap<Entry, Boolean> top = new ConcurrentSkipListMap<>(ORDER);
+    final AtomicInteger topSize = new AtomicInteger();
+    final ConcurrentSkipListMap<Integer, LongAdder> counts = new ConcurrentSkipListMap<>();
+    final LongAdder total = new LongAdder();
+    final ConcurrentHashMap<String, Entry> players = new ConcurrentHashMap<>();
+    long covered;                     // log records folded in (snapshot state only)
+
+    Index(int capacity)
+    {
+      this.capacity = capacity;
+    }
+
+    void add(Entry e)
+    {
+      count(e.score, 1);
+      players.merge(e.player, e, (a, b) -> ORDER.compare(a, b) <= 0 ? a : b);
+
+      Map.Entry<Entry, Boolean> worst = top.lastEntry();
+      if (topSize.get() >= capacity && worst != null && ORDER.compare(e, worst.getKey()) > 0) return;
+      top.put(e, Boolean.TRUE);
+      if (topSize.incrementAndGet() > capacity && top.pollLastEntry() != null) topSize.decrementAndGet();
+    }
+
+    void count(int score, long n)
+    {
+      counts.computeIfAbsent(score, k -> new LongAdder()).add(n);
+      total.add(n);
+    }
+
+    long rank(int score)
+    {
+      long ahead = 0;
+      for (LongAdder n : counts.tailMap(score, false).values()) ahead += n.sum();
+      return ahead + 1;
+    }
+
+    /*
+     * Snapshot: magic, version, covered, then counts (score, n), top entries
+     * and players' bests as log records.
+     */
+    void write(Path file) throws IOException
+    {
+      List<Map.Entry<Integer, LongAdder>> scores = new ArrayList<>(counts.entrySet());
+      List<Entry> tops = new ArrayList<>(top.keySet());
+      List<Entry> bests = new ArrayList<>(players.values());
+      int header = 4 + 2 + 8 + 3*4;
+      long bytes = header + 12L * scores.size() + (long) RECORD_BYTES * (tops.size() + bests.size());
+      if (bytes > Integer.MAX_VALUE) throw new IOException("leaderboard snapshot over 2 GB");
+
+      ByteBuffer buf = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+      buf.putInt(SNAP_MAGIC).putShort(VERSION).putLong(covered)
+         .putInt(scores.size()).putInt(tops.size()).putInt(bests.size());
+      for (Map.Entry<Integer, LongAdder> s : scores) buf.putInt(s.getKey()).putLong(s.getValue().sum());
+      for (Entry e : tops) encode(e, buf);
+      for (Entry e : bests) encode(e, buf);
+      buf.flip();
+
+      try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                             StandardOpenOption.TRUNCATE_EXISTING))
+      {
+        while (buf.hasRemaining()) ch.write(buf);
+        ch.force(true);
+      }
+    }
+
+    static Index read(Path file, int capacity) throws IOException
+    {
+      ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+      try
+      {
+        if (buf.getInt() != SNAP_MAGIC) throw new IOException(file + " is not a leaderboard snapshot");
+        short version = buf.getShort();
+        if (version != VERSION)
+          throw new IOException(file + ": snapshot version " + version + ", expected " + VERSION);
+        Index index = new Index(capacity);
+        index.covered = buf.getLong();
+        int scores = buf.getInt(), tops = buf.getInt(), bests = buf.getInt();
+        for (int i = 0; i < scores; i++) index.count(buf.getInt(), buf.getLong());
+        for (int i = 0; i < tops + bests; i++)
+        {
+          Entry e = decode(buf, buf.position());
+          if (e == null) throw new IOException(file + ": corrupt record");
+          buf.position(buf.position() + RECORD_BYTES);
+          if (i < tops)
+          {
+            if (index.topSize.get() < capacity && index.top.put(e, Boolean.TRUE) == null) index.topSize.incrementAndGet();
+          }
+          else index.players.merge(e.player, e, (a, b) -> ORDER.compare(a, b) <= 0 ? a : b);
+        }
+        return index;
+      }
+      catch (BufferUnderflowException | IndexOutOfBoundsException e)
+      {
+        throw new IOException(file + " is truncated", e);
+      }
+    }
+  }
+
+  /* ---------- command line ---------- */
+
+  public static void main(String[] args) throws Exception
+  {
+    Path dir = null;
+    int top = 10, bench = 0;
+    String player = null;
+    for (String a : args)
+    {
+      int eq = a.indexOf('=');
+      if (eq < 0) throw new IllegalArgumentException("expected key=value, got " + a);
+      String key = a.substring(0, eq), val = a.substring(eq + 1);
+      switch (key) {
+        case "dir":    dir = Paths.get(val); break;
+        case "top":    top = Integer.parseInt(val); break;
+        case "player": player = val; break;
+        case "bench":  bench = Integer.parseInt(val); break;
+        default: throw new IllegalArgumentException("unknown option " + key);
+      }
+    }
+    if (dir == null) throw new IllegalArgumentException("dir=... is required");
+
+    Leaderboard board = open(dir);
+    System.out.printf("%d results, recovered in %.2f ms%n", board.size(), board.recoveryNanos() / 1e6);
+
+    if (bench > 0)
+    {
+      // every core submits at once; names repeat so players have several results
+      int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      long t0 = System.nanoTime();
+      for (int t = 0; t < threads; t++)
+      {
+        int share = bench / threads + (t < bench % threads ? 1 : 0);
+        pool.execute(() -> {
+          ThreadLocalRandom r = ThreadLocalRandom.current();
+          for (int i = 0; i < share; i++)
+            board.submit("bench-" + r.nextInt(10000), 5 * r.nextInt(-20, 40), r.nextInt(1, 200),
+                         r.nextInt(90_000), r.nextLong());
+        });
+      }
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.HOURS);
+      double secs = (System.nanoTime() - t0) / 1e9;
+      System.out.printf("submitted %d on %d threads in %.2f s (%.0f/s)%n", bench, threads, secs, bench / secs);
+
+      int reps = 10000;
+      long sink = 0, q0 = System.nanoTime();
+      for (int i = 0; i < reps; i++) sink += board.top(top).size();
+      long q1 = System.nanoTime();
+      for (int i = 0; i < reps; i++) sink += board.rank("bench-" + (i % 10000));
+      long q2 = System.nanoTime();
+      System.out.printf("top(%d) %.2f us, rank(player) %.2f us (%d)%n",
+                        top, (q1 - q0) / 1e3 / reps, (q2 - q1) / 1e3 / reps, sink & 1);
+    }
+
+    List<Entry> best = board.top(top);
+    for (int i = 0; i < best.size(); i++)
+      System.out.printf("%3d. %s%n", board.rank(best.get(i).score), best.get(i));
+    if (player != null)
+    {
+      Entry e = board.best(player);
+      System.out.println(e == null ? player + ": no results" : "rank " + board.rank(player) + ": " + e);
+    }
+    board.close();
+  }
+}
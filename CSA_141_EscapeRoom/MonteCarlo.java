@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Monte Carlo balancing of the score constants
+ * - Plays seeded headless games with a bot across all cores (fork/join)
+ * - Game i of a run uses board seed Seeds.mix(seed, i), so runs are reproducible
+ * - Each worker reuses one engine, bot and Random; a game allocates only its
+ *   GameSession (quiet from the start, so no console buffer) and createBoard's CellSampler
+ *
+ * Usage: java MonteCarlo [key=value ...]
+ *   games=100000 seed=1 bot=greedy|random|trapaware|all size=8x5 secondsPerCommand=1 hist=false
+ *   prizeVal trapVal endVal offGridVal hitWallVal trapPenalty powerupSteps timeLimitSeconds
+ *   Any value may be a comma list (e.g. prizeVal=5,10,20); every combination is run.
+ */
+public class MonteCarlo
+{
+  private static final int GAMES_PER_TASK = 2048;
+
+  private final ScoreConfig cfg;
+  private final Supplier<Bot> bots;
+  private final int gridW, gridH;
+  private final int maxCommands;
+  private final long seed;
+
+  public MonteCarlo(ScoreConfig cfg, Supplier<Bot> bots, int gridW, int gridH,
+                    double secondsPerCommand, long seed)
+  {
+    this.cfg = cfg;
+    this.bots = bots;
+    this.gridW = gridW;
+    this.gridH = gridH;
+    this.maxCommands = (int) Math.max(1, cfg.timeLimitSeconds / secondsPerCommand);
+    this.seed = seed;
+  }
+
+  /** Play games [0, games) on the common pool. */
+  public SimStats run(long games)
+  {
+    return ForkJoinPool.commonPool().invoke(new Games(0, games));
+  }
+
+  private final class Games extends RecursiveTask<SimStats>
+  {
+    private static final long serialVersionUID = 141L;
+    private final long lo, hi;
+
+    Games(long lo, long hi) { this.lo = lo; this.hi = hi; }
+
+    @Override
+    protected SimStats compute()
+    {
+      if (hi - lo > GAMES_PER_TASK)
+      {
+        long mid = (lo + hi) >>> 1;
+        Games left = new Games(lo, mid);
+        left.fork();
+        SimStats right = new Games(mid, hi).compute();
+        return right.merge(left.join());
+      }
+
+      SimStats stats = new SimStats();
+      GameEngine engine = new GameEngine(gridW, gridH);
+      engine.setQuiet(true);
+      Bot bot = bots.get();
+      Random rand = new Random();
+      for (long i = lo; i < hi; i++)
+      {
+        long s = Seeds.mix(seed, i);
+        engine.setSeed(s);
+        engine.createBoard();
+        rand.setSeed(~s);
+
+        GameSession session = new GameSession(engine, cfg, GameEventListener.NONE);
+        for (int c = 0; c < maxCommands; c++)
+          if (!session.execute(bot.nextCommand(engine, session, rand))) break;
+        int score = session.finish();
+        stats.record(score, engine.getSteps(), engine.isAtEnd());
+      }
+      return stats;
+    }
+  }
+
+  static Supplier<Bot> botNamed(String name)
+  {
+    switch (name) {
+      case "random":    return RandomWalkBot::new;
+      case "greedy":    return GreedyCoinBot::new;
+      case "trapaware": return TrapAwareBot::new;
+      default: throw new IllegalArgumentException("unknown bot '" + name + "' (random|greedy|trapaware)");
+    }
+  }
+
+  /* ---------- command line sweep ---------- */
+
+  public static void main(String[] args)
+  {
+    List<String[]> sweep = new ArrayList<>();   // {key, v1, v2, ...}
+    long games = 100000, seed = 1;
+    int gridW = GameEngine.DEFAULT_GRID_W, gridH = GameEngine.DEFAULT_GRID_H;
+    double secondsPerCommand = 1;
+    boolean hist = false;
+    String[] botNames = { "greedy" };
+
+    for (String a : args)
+    {
+      int eq = a.indexOf('=');
+      if (eq < 0) throw new IllegalArgumentException("expected key=value, got " + a);
+      String key = a.substring(0, eq), val = a.substring(eq + 1);
+      switch (key) {
+        case "games":  games = Long.parseLong(val); break;
+        case "seed":   seed = Long.parseLong(val); break;
+        case "hist":   hist = Boolean.parseBoolean(val); break;
+        case "secondsPerCommand": secondsPerCommand = Double.parseDouble(val); break;
+        case "size": {
+          String[] wh = val.split("x");
+          gridW = Integer.parseInt(wh[0]);
+          gridH = Integer.parseInt(wh[1]);
+          break;
+        }
+        case "bot":
+          botNames = val.equals("all") ? new String[] { "random", "greedy", "trapaware" } : val.split(",");
+          break;
+        default: {
+          String[] kv = (key + "," + val).split(",");
+          apply(new ScoreConfig(), kv[0], kv[1]);   // validate the key up front
+          sweep.add(kv);
+        }
+      }
+    }
+
+    System.out.println("games=" + games + " seed=" + seed + " board=" + gridW + "x" + gridH
+                       + " threads=" + ForkJoinPool.commonPool().getParallelism());
+    List<ScoreConfig> configs = new ArrayList<>();
+    expand(sweep, 0, new ScoreConfig(), configs);
+    for (ScoreConfig cfg : configs)
+      for (String name : botNames)
+      {
+        long t0 = System.nanoTime();
+        SimStats stats = new MonteCarlo(cfg, botNamed(name), gridW, gridH, secondsPerCommand, seed).run(games);
+        double secs = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("bot=%s %s%n  %s (%.1fs, %.0f games/s)%n", name, cfg, stats, secs, games / secs);
+        if (hist) System.out.println("  hist " + stats.histogram());
+      }
+  }
+
+  /** Cartesian product of the swept values. */
+  private static void expand(List<String[]> sweep, int i, ScoreConfig cfg, List<ScoreConfig> out)
+  {
+    if (i == sweep.size()) { out.add(cfg); return; }
+    String[] kv = sweep.get(i);
+    for (int v = 1; v < kv.length; v++)
+    {
+      ScoreConfig c = cfg.copy();
+      apply(c, kv[0], kv[v]);
+      expand(sweep, i + 1, c, out);
+    }
+  }
+
+  private static void apply(ScoreConfig c, String key, String val)
+  {
+    int v = Integer.parseInt(val);
+    switch (key) {
+      case "prizeVal":         c.prizeVal = v; break;
+      case "trapVal":          c.trapVal = v; break;
+      case "endVal":           c.endVal = v; break;
+      case "offGridVal":       c.offGridVal = v; break;
+      case "hitWallVal":       c.hitWallVal = v; break;
+      case "trapPenalty":      c.trapPenalty = v; break;
+      case "powerupSteps":     c.powerupSteps = v; break;
+      case "timeLimitSeconds": c.timeLimitSeconds = v; break;
+      default: throw new IllegalArgumentException("unknown setting " + key);
+    }
+  }
+}
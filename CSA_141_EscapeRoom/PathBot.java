@@ -0,0 +1,29 @@
+import java.util.Random;
+
+/**
+ * Base for bots that walk shortest paths (see Pathfinder)
+ * - Heads for the nearest target item, then the exit column, then quits
+ * - Pathfinder reuses its scratch arrays, so a move costs no allocation
+ */
+public abstract class PathBot implements Bot
+{
+  private static final String[] STEP = { "r", "l", "d", "u" };   // Pathfinder direction order
+
+  /** Item kinds worth walking to, as a bit mask (1 << ItemGrid.PRIZE ...). */
+  protected abstract int targetKinds();
+
+  /** Item kinds the path may not enter, as a bit mask. */
+  protected abstract int avoidKinds();
+
+  public String nextCommand(GameEngine game, GameSession session, Random rand)
+  {
+    int w = game.getPlayerCol(), h = game.getPlayerRow();
+    if (game.getItem(w, h) == ItemGrid.PRIZE) return "p";
+
+    Pathfinder paths = game.getPathfinder();
+    int dir = paths.stepTowardNearest(w, h, game.getItems(), targetKinds(), avoidKinds());
+    if (dir < 0) dir = paths.stepTowardExit(w, h);   // cached distance field
+    if (dir < 0) return "q";                          // at the exit, or cut off
+    return STEP[dir];
+  }
+}
@@ -0,0 +1,403 @@
+import java.util.Arrays;
+
+/**
+ * Shortest paths and reachability over a board's wall edges
+ * - BFS distance fields from the start cell and to the exit column, cached
+ *   until the walls change (WallEdges.getVersion)
+ * - Point-to-point paths: BFS on small boards, A* with a primitive binary heap
+ *   and an open-addressing score table on large ones (memory ~ cells explored)
+ * - Nearest-item searches take the live ItemGrid and are never cached
+ * Not thread-safe: one Pathfinder per engine.
+ */
+public class Pathfinder
+{
+  /** Above this many cells, point-to-point searches and the solvability check use A*. */
+  public static final int LARGE_BOARD_CELLS = 1 << 16;
+
+  public static final int UNREACHABLE = -1;
+
+  // directions: right, left, down, up
+  private static final int[] DX = { 1, -1, 0, 0 };
+  private static final int[] DY = { 0, 0, 1, -1 };
+
+  private final WallEdges walls;
+  private final int gridW;
+  private final int gridH;
+  private final int cells;
+
+  // cached fields (null until first asked), tagged with the wall version they were built for
+  private int[] fromStart;
+  private int[] toExit;
+  private int fromStartVersion;
+  private int toExitVersion;
+  private int solvableVersion = -1;
+  private boolean solvable;
+
+  // BFS scratch, reused between searches
+  private int[] queue;
+  private int[] parent;
+  private int[] seen;           // == stamp when visited this search
+  private int stamp;
+
+  // A* scratch
+  private long[] heap = new long[64];     // (f << 32) | cell
+  private int heapSize;
+  private int[] keys = new int[0];        // open-addressing cell -> slot
+  private int[] gScore;
+  private int[] from;
+  private int mask;
+  private int used;
+
+  public Pathfinder(WallEdges walls)
+  {
+    this.walls = walls;
+    this.gridW = walls.getGridW();
+    this.gridH = walls.getGridH();
+    this.cells = gridW * gridH;
+  }
+
+  /* ---------- cached reachability ---------- */
+
+  /** True if the start cell (0,0) can reach the exit (last) column. */
+  public boolean isSolvable()
+  {
+    if (solvableVersion != walls.getVersion())
+    {
+      if (cells > LARGE_BOARD_CELLS)
+        solvable = aStar(0, -1) != null;
+      else
+      {
+        int[] d = startField();
+        solvable = false;
+        for (int h = 0; h < gridH && !solvable; h++)
+          solvable = d[h*gridW + gridW - 1] != UNREACHABLE;
+      }
+      solvableVersion = walls.getVersion();
+    }
+    return solvable;
+  }
+
+  /** Steps from the start cell to (w,h), or UNREACHABLE. */
+  public int distanceFromStart(int w, int h) { return startField()[h*gridW + w]; }
+
+  /** Steps from (w,h) to the nearest exit-column cell, or UNREACHABLE. */
+  public int distanceToExit(int w, int h)    { return exitField()[h*gridW + w]; }
+
+  /**
+   * Direction (0 right, 1 left, 2 down, 3 up) of a step that brings (w,h)
+   * closer to the exit, or -1 if already there or cut off. O(1) once the field is cached.
+   */
+  public int stepTowardExit(int w, int h)
+  {
+    int[] d = exitField();
+    int here = d[h*gridW + w];
+    if (here <= 0) return -1;
+    for (int dir = 0; dir < 4; dir++)
+    {
+      int nx = w + DX[dir], ny = h + DY[dir];
+      if (inGrid(nx, ny) && d[ny*gridW + nx] == here - 1 && !walls.blocks(w, h, DX[dir], DY[dir]))
+        return dir;
+    }
+    return -1;
+  }
+
+  /**
+   * Steps from the nearest of sources[0..count) to every cell (UNREACHABLE if
+   * cut off) into dist; one BFS, not cached.
+   */
+  public void distancesFrom(int[] sources, int count, int[] dist)
+  {
+    ensureScratch();
+    System.arraycopy(sources, 0, queue, 0, count);
+    bfsField(dist, count);
+  }
+
+  private int[] startField()
+  {
+    if (fromStart == null || fromStartVersion != walls.getVersion())
+    {
+      if (fromStart == null) fromStart = new int[cells];
+      ensureScratch();
+      queue[0] = 0;
+      bfsField(fromStart, 1);
+      fromStartVersion = walls.getVersion();
+    }
+    return fromStart;
+  }
+
+  private int[] exitField()
+  {
+    if (toExit == null || toExitVersion != walls.getVersion())
+    {
+      if (toExit == null) toExit = new int[cells];
+      ensureScratch();
+      for (int h = 0; h < gridH; h++) queue[h] = h*gridW + gridW - 1;
+      bfsField(toExit, gridH);
+      toExitVersion = walls.getVersion();
+    }
+    return toExit;
+  }
+
+  /** Multi-source BFS; the sources are queue[0..sources). Moves are symmetric, so this serves both directions. */
+  private void bfsField(int[] dist, int sources)
+  {
+    ensureScratch();
+    Arrays.fill(dist, UNREACHABLE);
+    for (int i = 0; i < sources; i++) dist[queue[i]] = 0;
+    int head = 0, tail = sources;
+    while (head < tail)
+    {
+      int cell = queue[head++];
+      int cx = cell % gridW, cy = cell / gridW;
+      for (int dir = 0; dir < 4; dir++)
+      {
+        int nx = cx + DX[dir], ny = cy + DY[dir];
+        if (!inGrid(nx, ny)) continue;
+        int next = ny*gridW + nx;
+        if (dist[next] != UNREACHABLE || walls.blocks(cx, cy, DX[dir], DY[dir])) continue;
+        dist[next] = dist[cell] + 1;
+        queue[tail++] = next;
+      }
+    }
+  }
+
+  /* ---------- point-to-point ---------- */
+
+  /**
+   * Shortest path between two cells, both ends included, as row-major cell
+   * indices; null if unreachable.
+   */
+  public int[] shortestPath(int fromW, int fromH, int toW, int toH)
+  {
+    int src = fromH*gridW + fromW, dst = toH*gridW + toW;
+    if (cells > LARGE_BOARD_CELLS) return aStar(src, dst);
+
+    ensureScratch();
+    newStamp();
+    int head = 0, tail = 0;
+    queue[tail++] = src;
+    seen[src] = stamp;
+    parent[src] = -1;
+    while (head < tail)
+    {
+      int cell = queue[head++];
+      if (cell == dst) return trace(parent, dst);
+      int cx = cell % gridW, cy = cell / gridW;
+      for (int dir = 0; dir < 4; dir++)
+      {
+        int nx = cx + DX[dir], ny = cy + DY[dir];
+        if (!inGrid(nx, ny)) continue;
+        int next = ny*gridW + nx;
+        if (seen[next] == stamp || walls.blocks(cx, cy, DX[dir], DY[dir])) continue;
+        seen[next] = stamp;
+        parent[next] = cell;
+        queue[tail++] = next;
+      }
+    }
+    return null;
+  }
+
+  /* ---------- nearest item ---------- */
+
+  /**
+   * BFS from (w,h) to the nearest cell whose item kind is in targetKinds,
+   * never entering a cell whose kind is in avoidKinds. Masks are bits
+   * (1 << ItemGrid.PRIZE etc). The start cell itself does not count.
+   * @return direction of the first step (0 right, 1 left, 2 down, 3 up), or -1
+   */
+  public int stepTowardNearest(int w, int h, ItemGrid items, int targetKinds, int avoidKinds)
+  {
+    int goal = nearest(w, h, items, targetKinds, avoidKinds);
+    if (goal < 0) return -1;
+    int start = h*gridW + w, cell = goal;
+    while (parent[cell] != start) cell = parent[cell];
+    int dx = cell % gridW - w, dy = cell / gridW - h;
+    return dx == 1 ? 0 : dx == -1 ? 1 : dy == 1 ? 2 : 3;
+  }
+
+  /** Cell index of the nearest matching item by path length (see stepTowardNearest), or -1. */
+  public int nearest(int w, int h, ItemGrid items, int targetKinds, int avoidKinds)
+  {
+    // nothing left to find: skip a flood of the whole reachable board
+    int live = 0;
+    for (int kind = ItemGrid.PRIZE; kind <= ItemGrid.POWERUP; kind++)
+      if ((targetKinds & (1 << kind)) != 0) live += items.count(kind);
+    if (live == 0) return -1;
+
+    ensureScratch();
+    newStamp();
+    int start = h*gridW + w;
+    int head = 0, tail = 0;
+    queue[tail++] = start;
+    seen[start] = stamp;
+    parent[start] = -1;
+    while (head < tail)
+    {
+      int cell = queue[head++];
+      if (cell != start && (targetKinds & (1 << items.get(cell))) != 0) return cell;
+      int cx = cell % gridW, cy = cell / gridW;
+      for (int dir = 0; dir < 4; dir++)
+      {
+        int nx = cx + DX[dir], ny = cy + DY[dir];
+        if (!inGrid(nx, ny)) continue;
+        int next = ny*gridW + nx;
+        if (seen[next] == stamp || walls.blocks(cx, cy, DX[dir], DY[dir])) continue;
+        if ((avoidKinds & (1 << items.get(next))) != 0) continue;
+        seen[next] = stamp;
+        parent[next] = cell;
+        queue[tail++] = next;
+      }
+    }
+    return -1;
+  }
+
+  /* ---------- A* (large boards) ---------- */
+
+  /** A* from src to dst, or to any exit-column cell when dst < 0. */
+  private int[] aStar(int src, int dst)
+  {
+    int dstW = dst < 0 ? gridW - 1 : dst % gridW, dstH = dst < 0 ? 0 : dst / gridW;
+    resetScores();
+    heapSize = 0;
+    put(src, 0, -1);
+    push(heuristic(src, dst, dstW, dstH), src);
+
+    while (heapSize > 0)
+    {
+      long top = pop();
+      int cell = (int) top;
+      int slot = find(cell);
+      int g = gScore[slot];
+      if ((int) (top >>> 32) > g + heuristic(cell, dst, dstW, dstH)) continue;   // stale entry
+      int cx = cell % gridW, cy = cell / gridW;
+      if (dst < 0 ? cx == gridW - 1 : cell == dst) return traceScores(cell);
+
+      for (int dir = 0; dir < 4; dir++)
+      {
+        int nx = cx + DX[dir], ny = cy + DY[dir];
+        if (!inGrid(nx, ny) || walls.blocks(cx, cy, DX[dir], DY[dir])) continue;
+        int next = ny*gridW + nx;
+        int ns = find(next);
+        if (keys[ns] == next && gScore[ns] <= g + 1) continue;
+        put(next, g + 1, cell);
+        push(g + 1 + heuristic(next, dst, dstW, dstH), next);
+      }
+    }
+    return null;
+  }
+
+  private int heuristic(int cell, int dst, int dstW, int dstH)
+  {
+    int cx = cell % gridW;
+    if (dst < 0) return dstW - cx;
+    return Math.abs(dstW - cx) + Math.abs(dstH - cell / gridW);
+  }
+
+  private void push(int f, int cell)
+  {
+    if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+    long e = ((long) f << 32) | cell;
+    int i = heapSize++;
+    while (i > 0)
+    {
+      int p = (i - 1) >>> 1;
+      if (heap[p] <= e) break;
+      heap[i] = heap[p];
+      i = p;
+    }
+    heap[i] = e;
+  }
+
+  private long pop()
+  {
+    long top = heap[0];
+    long last = heap[--heapSize];
+    int i = 0;
+    while (true)
+    {
+      int c = 2*i + 1;
+      if (c >= heapSize) break;
+      if (c + 1 < heapSize && heap[c + 1] < heap[c]) c++;
+      if (heap[c] >= last) break;
+      heap[i] = heap[c];
+      i = c;
+    }
+    if (heapSize > 0) heap[i] = last;
+    return top;
+  }
+
+  private void resetScores()
+  {
+    if (keys.length == 0 || keys.length > 1024 && used < keys.length / 16)
+    {
+      keys = new int[1024]; gScore = new int[1024]; from = new int[1024];
+      mask = 1023;
+    }
+    Arrays.fill(keys, -1);
+    used = 0;
+  }
+
+  private int find(int cell)
+  {
+    int i = (cell * 0x9E3779B9) & mask;
+    while (keys[i] != -1 && keys[i] != cell) i = (i + 1) & mask;
+    return i;
+  }
+
+  private void put(int cell, int g, int prev)
+  {
+    if ((used + 1) * 2 > keys.length) grow();
+    int i = find(cell);
+    if (keys[i] == -1) { keys[i] = cell; used++; }
+    gScore[i] = g;
+    from[i] = prev;
+  }
+
+  private void grow()
+  {
+    int[] ok = keys, og = gScore, of = from;
+    keys = new int[ok.length * 2]; gScore = new int[ok.length * 2]; from = new int[ok.length * 2];
+    Arrays.fill(keys, -1);
+    mask = keys.length - 1;
+    for (int i = 0; i < ok.length; i++)
+      if (ok[i] != -1)
+      {
+        int j = find(ok[i]);
+        keys[j] = ok[i]; gScore[j] = og[i]; from[j] = of[i];
+      }
+  }
+
+  private int[] traceScores(int cell)
+  {
+    int[] path = new int[gScore[find(cell)] + 1];
+    for (int i = path.length - 1; i >= 0; i--)
+    {
+      path[i] = cell;
+      cell = from[find(cell)];
+    }
+    return path;
+  }
+
+  /* ---------- helpers ---------- */
+
+  private boolean inGrid(int w, int h) { return w >= 0 && h >= 0 && w < gridW && h < gridH; }
+
+  private void ensureScratch()
+  {
+    if (queue == null) { queue = new int[cells]; parent = new int[cells]; seen = new int[cells]; }
+  }
+
+  private void newStamp()
+  {
+    if (++stamp == 0) { Arrays.fill(seen, 0); stamp = 1; }
+  }
+
+  private static int[] trace(int[] parent, int dst)
+  {
+    int n = 0;
+    for (int c = dst; c != -1; c = parent[c]) n++;
+    int[] path = new int[n];
+    for (int c = dst; c != -1; c = parent[c]) path[--n] = c;
+    return path;
+  }
+}
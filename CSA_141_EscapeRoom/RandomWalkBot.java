@@ -0,0 +1,14 @@
+import java.util.Random;
+
+/** Baseline bot: random single steps and jumps, picks up anything it lands on, quits at the exit. */
+public class RandomWalkBot implements Bot
+{
+  private static final String[] MOVES = { "r", "l", "u", "d", "r", "d", "jr", "jd" };
+
+  public String nextCommand(GameEngine game, GameSession session, Random rand)
+  {
+    if (game.isAtEnd()) return "q";
+    if (game.getItem(game.getPlayerCol(), game.getPlayerRow()) == ItemGrid.PRIZE) return "p";
+    return MOVES[rand.nextInt(MOVES.length)];
+  }
+}
@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only binary journal of one session, enough to re-run it exactly
+ * - Header: magic, version, seed, board size and item/wall counts, ScoreConfig, start time
+ * - One 9-byte record per command: millis since start, command id, score delta
+ * - A FINISH record carries the end-of-game bonus/penalty
+ * - Written through a 64 KB buffer onto a FileChannel; flushed when full and on close
+ *
+ * Little-endian throughout. Replayer reads it back.
+ */
+public class ReplayJournal implements AutoCloseable
+{
+  public static final int MAGIC   = 0x31524a45;    // "EJR1" little-endian
+  public static final short VERSION = 1;
+  public static final int HEADER_BYTES = 4 + 2 + 8 + 6*4 + 8*4 + 8;
+  public static final int RECORD_BYTES = 4 + 1 + 4;
+
+  // command ids besides Command.ordinal()
+  public static final byte NO_COMMAND = -2;        // unparsed input (still runs bookkeeping)
+  public static final byte FINISH     = -1;
+
+  private final FileChannel ch;
+  private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+  private final long startMillis;
+
+  /**
+   * Start a journal for a freshly created board. seed must be the one the
+   * engine was seeded with before createBoard().
+   */
+  public ReplayJournal(Path file, long seed, GameEngine engine, ScoreConfig cfg) throws IOException
+  {
+    ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                          StandardOpenOption.TRUNCATE_EXISTING);
+    startMillis = System.currentTimeMillis();
+    buf.putInt(MAGIC).putShort(VERSION).putLong(seed)
+       .putInt(engine.getGridW()).putInt(engine.getGridH())
+       .putInt(engine.getWallCount()).putInt(engine.getPrizeCount())
+       .putInt(engine.getTrapCount()).putInt(engine.getPowerupCount())
+       .putInt(cfg.prizeVal).putInt(cfg.trapVal).putInt(cfg.endVal).putInt(cfg.offGridVal)
+       .putInt(cfg.hitWallVal).putInt(cfg.trapPenalty).putInt(cfg.powerupSteps).putInt(cfg.timeLimitSeconds)
+       .putLong(startMillis);
+  }
+
+  /** Append one command (null = unparsed input) and the score change it caused. */
+  public void record(Command command, int scoreDelta)
+  {
+    append(command == null ? NO_COMMAND : (byte) command.ordinal(), scoreDelta);
+  }
+
+  /** Append the end-of-game bonus/penalty. */
+  public void recordFinish(int scoreDelta)
+  {
+    append(FINISH, scoreDelta);
+  }
+
+  private void append(byte id, int scoreDelta)
+  {
+    if (buf.remaining() < RECORD_BYTES) flush();
+    buf.putInt((int) (System.currentTimeMillis() - startMillis)).put(id).putInt(scoreDelta);
+  }
+
+  /** Write buffered records to the file. */
+  public void flush()
+  {
+    buf.flip();
+    try
+    {
+      while (buf.hasRemaining()) ch.write(buf);
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+    buf.clear();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    flush();
+    ch.close();
+  }
+}
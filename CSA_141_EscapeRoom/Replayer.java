@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Headless re-run of ReplayJournal files at full speed
+ * - Regenerates the board from the journal's seed and parameters, replays every
+ *   command through GameSession and checks each score delta against the record
+ * - Any mismatch means the rules, the board or the journal changed: the score is disputed
+ *
+ * Usage: java Replayer journal.erj [more.erj ...]   (files are replayed in parallel)
+ */
+public class Replayer
+{
+  private static final Command[] COMMANDS = Command.values();
+
+  /** Outcome of one journal. */
+  public static final class Result
+  {
+    public final Path file;
+    public final int commands;
+    public final int recordedScore;
+    public final int replayedScore;
+    public final int firstMismatch;      // record index, or -1
+
+    Result(Path file, int commands, int recordedScore, int replayedScore, int firstMismatch)
+    {
+      this.file = file;
+      this.commands = commands;
+      this.recordedScore = recordedScore;
+      this.replayedScore = replayedScore;
+      this.firstMismatch = firstMismatch;
+    }
+
+    public boolean matches() { return firstMismatch < 0 && recordedScore == replayedScore; }
+
+    @Override
+    public String toString()
+    {
+      return file + ": " + commands + " commands, recorded score=" + recordedScore
+           + ", replayed score=" + replayedScore
+           + (matches() ? " OK" : " MISMATCH at record " + firstMismatch);
+    }
+  }
+
+  /** Replay one journal file. */
+  public static Result replay(Path file) throws IOException
+  {
+    MappedByteBuffer in;
+    try (FileChannel ch = FileChannel.open(file))
+    {
+      in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+    }
+    in.order(ByteOrder.LITTLE_ENDIAN);
+    if (in.remaining() < ReplayJournal.HEADER_BYTES || in.getInt() != ReplayJournal.MAGIC)
+      throw new IOException(file + " is not a replay journal");
+    short version = in.getShort();
+    if (version != ReplayJournal.VERSION)
+      throw new IOException(file + ": unsupported journal version " + version);
+
+    long seed = in.getLong();
+    GameEngine game = new GameEngine(in.getInt(), in.getInt());
+    game.setWalls(in.getInt());
+    game.setPrizes(in.getInt());
+    game.setTraps(in.getInt());
+    game.setPowerups(in.getInt());
+    ScoreConfig cfg = new ScoreConfig();
+    cfg.prizeVal = in.getInt();     cfg.trapVal = in.getInt();      cfg.endVal = in.getInt();
+    cfg.offGridVal = in.getInt();   cfg.hitWallVal = in.getInt();   cfg.trapPenalty = in.getInt();
+    cfg.powerupSteps = in.getInt(); cfg.timeLimitSeconds = in.getInt();
+    in.getLong();                   // start time (audit only)
+
+    GameSession session = new GameSession(game, cfg, GameEventListener.NONE);
+    game.setSeed(seed);
+    game.createBoard();
+
+    int commands = 0, recorded = 0, mismatch = -1;
+    for (int i = 0; in.remaining() >= ReplayJournal.RECORD_BYTES; i++)
+    {
+      in.getInt();                  // timestamp (audit only)
+      byte id = in.get();
+      int delta = in.getInt();
+      recorded += delta;
+
+      if (id != ReplayJournal.FINISH && id != ReplayJournal.NO_COMMAND && (id < 0 || id >= COMMANDS.length))
+        throw new IOException(file + ": bad command id " + id + " in record " + i);
+
+      int before = session.getScore();
+      if (id == ReplayJournal.FINISH) session.finish();
+      else
+      {
+        session.execute(id == ReplayJournal.NO_COMMAND ? null : COMMANDS[id]);
+        commands++;
+      }
+      if (session.getScore() - before != delta && mismatch < 0) mismatch = i;
+    }
+    return new Result(file, commands, recorded, session.getScore(), mismatch);
+  }
+
+  public static void main(String[] args)
+  {
+    if (args.length == 0)
+    {
+      System.err.println("usage: java Replayer journal.erj [more.erj ...]");
+      System.exit(2);
+    }
+    long t0 = System.nanoTime();
+    Result[] results = Arrays.stream(args).parallel().map(a -> {
+      try
+      {
+        return replay(Paths.get(a));
+      }
+      catch (IOException e)
+      {
+        throw new UncheckedIOException(e);
+      }
+    }).toArray(Result[]::new);
+    double secs = (System.nanoTime() - t0) / 1e9;
+
+    long total = 0;
+    int bad = 0;
+    for (Result r : results)
+    {
+      System.out.println(r);
+      total += r.commands;
+      if (!r.matches()) bad++;
+    }
+    System.out.printf("%d journals, %d commands in %.3fs (%.0f commands/s), %d mismatched%n",
+                      results.length, total, secs, total / secs, bad);
+    if (bad > 0) System.exit(1);
+  }
+}
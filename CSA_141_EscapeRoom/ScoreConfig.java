@@ -0,0 +1,37 @@
+/**
+ * Tunable scoring and timing constants
+ * - Defaults are the classic EscapeRoom values
+ * - GameEngine uses the per-action values, GameSession the trap penalty, powerup and timer
+ */
+public class ScoreConfig
+{
+  // scoring (penalties applied negative)
+  public int prizeVal    = 10;
+  public int trapVal     = 10;   // -10 for no trap to spring/disarm; +10 when detrap succeeds
+  public int endVal      = 10;
+  public int offGridVal  = 5;
+  public int hitWallVal  = 5;
+  public int trapPenalty = GameSession.TRAP_PEN;                 // stepping on a trap
+
+  // powerup / timer
+  public int powerupSteps     = GameSession.POWERUP_STEPS_DURATION;
+  public int timeLimitSeconds = GameSession.TIME_LIMIT_SECONDS;
+
+  public ScoreConfig copy()
+  {
+    ScoreConfig c = new ScoreConfig();
+    c.prizeVal = prizeVal;       c.trapVal = trapVal;         c.endVal = endVal;
+    c.offGridVal = offGridVal;   c.hitWallVal = hitWallVal;   c.trapPenalty = trapPenalty;
+    c.powerupSteps = powerupSteps;
+    c.timeLimitSeconds = timeLimitSeconds;
+    return c;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "prizeVal=" + prizeVal + " trapVal=" + trapVal + " endVal=" + endVal
+         + " offGridVal=" + offGridVal + " hitWallVal=" + hitWallVal + " trapPenalty=" + trapPenalty
+         + " powerupSteps=" + powerupSteps + " timeLimitSeconds=" + timeLimitSeconds;
+  }
+}
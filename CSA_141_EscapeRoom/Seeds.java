@@ -0,0 +1,20 @@
+/**
+ * Seed derivation shared by the engine and the tools
+ * - mix(seed, i) spreads one seed into well-separated seeds per index:
+ *   endless rooms, Monte Carlo games, batch episodes, solver hash keys
+ * - One function, so anything that rebuilds a board from (seed, index)
+ *   gets the same board as the code that first made it
+ */
+public final class Seeds
+{
+  private Seeds() {}
+
+  /** SplitMix64 finaliser: well-spread seeds from (seed, index). */
+  public static long mix(long seed, long i)
+  {
+    long z = seed + (i + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,59 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Session time limit as scheduled events rather than checks between commands
+ * - onExpire runs once, on time, whether or not the player is typing
+ * - onTick gets the whole seconds left once a second (countdown displays)
+ * - Timers for many sessions can share one scheduler; cancel() frees a session's
+ */
+public class SessionClock implements AutoCloseable
+{
+  private static ScheduledExecutorService shared;
+
+  private final ScheduledFuture<?> expiry;
+  private final ScheduledFuture<?> ticks;    // null without onTick
+
+  /**
+   * @param onTick may be null; runs on the scheduler thread, so keep it short
+   */
+  public SessionClock(GameSession session, ScheduledExecutorService scheduler,
+                      Runnable onExpire, IntConsumer onTick)
+  {
+    long left = Math.max(0, session.millisLeft());
+    expiry = scheduler.schedule(onExpire, left, TimeUnit.MILLISECONDS);
+    ticks = (onTick == null) ? null
+        : scheduler.scheduleAtFixedRate(() -> onTick.accept(Math.max(0, session.timeLeft())),
+                                        left % 1000, 1000, TimeUnit.MILLISECONDS);
+  }
+
+  /** Clock on a process-wide single-thread scheduler. */
+  public SessionClock(GameSession session, Runnable onExpire, IntConsumer onTick)
+  {
+    this(session, sharedScheduler(), onExpire, onTick);
+  }
+
+  public static synchronized ScheduledExecutorService sharedScheduler()
+  {
+    if (shared == null)
+      shared = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "EscapeRoom-timer");
+        t.setDaemon(true);
+        return t;
+      });
+    return shared;
+  }
+
+  /** Stop the expiry and the countdown (session over). */
+  public void cancel()
+  {
+    expiry.cancel(false);
+    if (ticks != null) ticks.cancel(false);
+  }
+
+  @Override
+  public void close() { cancel(); }
+}
@@ -0,0 +1,80 @@
+/**
+ * Aggregated results of simulated games
+ * - Primitive counters plus a score histogram; merge() combines per-worker partials
+ */
+public class SimStats
+{
+  public static final int MIN_SCORE = -4096;
+  public static final int MAX_SCORE = 4095;   // scores outside are clamped into the end buckets
+
+  private final long[] hist = new long[MAX_SCORE - MIN_SCORE + 1];
+  private long games;
+  private long wins;
+  private long steps;
+  private long scoreSum;
+  private double scoreSqSum;
+
+  public void record(int score, int gameSteps, boolean won)
+  {
+    int b = Math.max(MIN_SCORE, Math.min(MAX_SCORE, score)) - MIN_SCORE;
+    hist[b]++;
+    games++;
+    if (won) wins++;
+    steps += gameSteps;
+    scoreSum += score;
+    scoreSqSum += (double) score * score;
+  }
+
+  public SimStats merge(SimStats o)
+  {
+    for (int i = 0; i < hist.length; i++) hist[i] += o.hist[i];
+    games += o.games;
+    wins += o.wins;
+    steps += o.steps;
+    scoreSum += o.scoreSum;
+    scoreSqSum += o.scoreSqSum;
+    return this;
+  }
+
+  public long getGames()        { return games; }
+  public double winRate()       { return games == 0 ? 0 : (double) wins / games; }
+  public double meanSteps()     { return games == 0 ? 0 : (double) steps / games; }
+  public double meanScore()     { return games == 0 ? 0 : (double) scoreSum / games; }
+
+  public double stdDevScore()
+  {
+    if (games == 0) return 0;
+    double mean = meanScore();
+    return Math.sqrt(Math.max(0, scoreSqSum / games - mean * mean));
+  }
+
+  /** Score at fraction q (0..1) of the distribution. */
+  public int percentile(double q)
+  {
+    long rank = (long) Math.ceil(q * games);
+    long seen = 0;
+    for (int i = 0; i < hist.length; i++)
+    {
+      seen += hist[i];
+      if (seen >= rank && seen > 0) return i + MIN_SCORE;
+    }
+    return MAX_SCORE;
+  }
+
+  /** Non-empty histogram buckets as "score:count" pairs. */
+  public String histogram()
+  {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < hist.length; i++)
+      if (hist[i] > 0) sb.append(sb.length() == 0 ? "" : " ").append(i + MIN_SCORE).append(':').append(hist[i]);
+    return sb.toString();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("games=%d win=%.2f%% score mean=%.2f sd=%.2f p5=%d p50=%d p95=%d steps=%.2f",
+                         games, 100 * winRate(), meanScore(), stdDevScore(),
+                         percentile(0.05), percentile(0.5), percentile(0.95), meanSteps());
+  }
+}
@@ -0,0 +1,168 @@
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The GUI's images, loaded once per process and packed into one sprite atlas
+ * - grid.png and the four sprites are read in parallel from the classpath, so
+ *   they load the same from a jar; a file in the working directory is the fallback
+ * - Fail fast: the first missing or unreadable asset throws, naming the file,
+ *   and the loads still running are cancelled
+ * - The grid (as drawn) and the sprites (pre-scaled) share one image, copied
+ *   once per GraphicsConfiguration into a compatible image; draw() blits a region
+ */
+public final class SpriteAtlas
+{
+  public static final int GRID    = 0;
+  public static final int PRIZE   = 1;
+  public static final int TRAP    = 2;
+  public static final int POWERUP = 3;
+  public static final int PLAYER  = 4;
+
+  private static final String[] FILES = { "grid.png", "coin.png", "trap.png", "powerup.png", "player.png" };
+  private static final int[] SIZES    = { 0, 15, 15, 20, 40 };   // sprite edge in pixels (0 = unscaled)
+
+  private static SpriteAtlas shared;    // guarded by SpriteAtlas.class
+
+  private final BufferedImage packed;   // ARGB: the grid, then the sprites in a row below it
+  private final int[] x = new int[FILES.length], y = new int[FILES.length];
+  private final int[] w = new int[FILES.length], h = new int[FILES.length];
+  private final long loadNanos;
+
+  private GraphicsConfiguration compatibleFor;
+  private Image compatible;
+
+  /** The process-wide atlas, loaded and packed on the first call. */
+  public static synchronized SpriteAtlas get()
+  {
+    if (shared == null) shared = new SpriteAtlas();
+    return shared;
+  }
+
+  private SpriteAtlas()
+  {
+    long t0 = System.nanoTime();
+    BufferedImage[] src = readAll();
+
+    int rowW = 0, rowH = 0;
+    for (int i = 0; i < FILES.length; i++)
+    {
+      w[i] = SIZES[i] == 0 ? src[i].getWidth() : SIZES[i];
+      h[i] = SIZES[i] == 0 ? src[i].getHeight() : SIZES[i];
+      if (i == GRID) continue;
+      x[i] = rowW;
+      y[i] = h[GRID];
+      rowW += w[i];
+      rowH = Math.max(rowH, h[i]);
+    }
+
+    packed = new BufferedImage(Math.max(w[GRID], rowW), h[GRID] + rowH, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2 = packed.createGraphics();
+    g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    for (int i = 0; i < FILES.length; i++)
+      g2.drawImage(src[i], x[i], y[i], w[i], h[i], null);
+    g2.dispose();
+    loadNanos = System.nanoTime() - t0;
+  }
+
+  /** Time the first get() spent reading and packing. */
+  public long loadNanos() { return loadNanos; }
+
+  public int width(int sprite)  { return w[sprite]; }
+  public int height(int sprite) { return h[sprite]; }
+
+  /**
+   * The atlas as an image compatible with gc (cached in video memory by Java2D),
+   * or the packed ARGB image when there is no gc (offscreen / headless).
+   */
+  public synchronized Image image(GraphicsConfiguration gc)
+  {
+    if (gc == null) return packed;
+    if (gc != compatibleFor)
+    {
+      BufferedImage img = gc.createCompatibleImage(packed.getWidth(), packed.getHeight(), Transparency.TRANSLUCENT);
+      Graphics2D g2 = img.createGraphics();
+      g2.drawImage(packed, 0, 0, null);
+      g2.dispose();
+      compatible = img;
+      compatibleFor = gc;
+    }
+    return compatible;
+  }
+
+  /** Blit one sprite of atlas (from image()) unscaled at dx, dy. */
+  public void draw(Graphics g, Image atlas, int sprite, int dx, int dy)
+  {
+    int sx = x[sprite], sy = y[sprite];
+    g.drawImage(atlas, dx, dy, dx + w[sprite], dy + h[sprite], sx, sy, sx + w[sprite], sy + h[sprite], null);
+  }
+
+  /* ---------- loading ---------- */
+
+  /** Read every asset, one thread each; the first failure is thrown. */
+  private static BufferedImage[] readAll()
+  {
+    ImageIO.setUseCache(false);          // decode in memory, no temp file per stream
+    BufferedImage[] images = new BufferedImage[FILES.length];
+    ExecutorService pool = Executors.newFixedThreadPool(FILES.length, r -> Threads.newThread("asset-loader", r));
+    CompletionService<Integer> done = new ExecutorCompletionService<>(pool);
+    try
+    {
+      for (int i = 0; i < FILES.length; i++)
+      {
+        int k = i;
+        done.submit(() -> { images[k] = read(FILES[k]); return k; });
+      }
+      for (int i = 0; i < FILES.length; i++) done.take().get();   // in completion order
+      return images;
+    }
+    catch (ExecutionException e)
+    {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw new UncheckedIOException((IOException) cause);
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      throw new IllegalStateException(cause);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while loading assets", e);
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+  }
+
+  private static BufferedImage read(String name) throws IOException
+  {
+    URL url = SpriteAtlas.class.getResource(name);     // default package: the classpath root
+    if (url == null)
+    {
+      File file = new File(name);
+      if (!file.isFile())
+        throw new FileNotFoundException(name + " is not on the classpath or in " + new File("").getAbsolutePath());
+      url = file.toURI().toURL();
+    }
+    BufferedImage img = ImageIO.read(url);
+    if (img == null) throw new IOException(name + " is not a readable image");
+    return img;
+  }
+}
@@ -0,0 +1,52 @@
+import java.lang.reflect.Method;
+
+/**
+ * Thread factory for blocking per-session work (console readers, sockets)
+ * - Virtual threads when the JDK has them (21+), looked up reflectively so
+ *   the game still builds and runs on 17
+ * - Otherwise daemon platform threads
+ */
+public final class Threads
+{
+  private static final Method OF_VIRTUAL = lookup("ofVirtual");
+
+  private Threads() {}
+
+  /** True if newThread gives virtual threads on this JDK. */
+  public static boolean virtual() { return OF_VIRTUAL != null; }
+
+  /** Unstarted thread running r; daemon if it is a platform thread. */
+  public static Thread newThread(String name, Runnable r)
+  {
+    if (OF_VIRTUAL != null)
+    {
+      try
+      {
+        // through the public Thread.Builder interface; the builder class itself is internal
+        Class<?> api = Class.forName("java.lang.Thread$Builder");
+        Object builder = OF_VIRTUAL.invoke(null);
+        builder = api.getMethod("name", String.class).invoke(builder, name);
+        return (Thread) api.getMethod("unstarted", Runnable.class).invoke(builder, r);
+      }
+      catch (ReflectiveOperationException | RuntimeException e)
+      {
+        // fall through to a platform thread
+      }
+    }
+    Thread t = new Thread(r, name);
+    t.setDaemon(true);
+    return t;
+  }
+
+  private static Method lookup(String name)
+  {
+    try
+    {
+      return Thread.class.getMethod(name);
+    }
+    catch (NoSuchMethodException e)
+    {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+import java.util.Random;
+
+/**
+ * Like GreedyCoinBot, but routes around traps to items and disarms any trap
+ * in reach (+trapVal) before moving on. The final walk to the exit follows
+ * the cached distance field; traps there were already disarmed on approach.
+ */
+public class TrapAwareBot extends PathBot
+{
+  protected int targetKinds() { return (1 << ItemGrid.PRIZE) | (1 << ItemGrid.POWERUP); }
+  protected int avoidKinds()  { return 1 << ItemGrid.TRAP; }
+
+  @Override
+  public String nextCommand(GameEngine game, GameSession session, Random rand)
+  {
+    if (game.isTrap(0,0) || game.isTrap(1,0) || game.isTrap(-1,0) || game.isTrap(0,1) || game.isTrap(0,-1))
+      return "dt";
+    return super.nextCommand(game, session, rand);
+  }
+}
@@ -0,0 +1,163 @@
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Walls stored as two packed bitsets, one bit per cell (row-major)
+ * - vertical bit (w,h):   wall between cell (w,h) and (w+1,h)
+ * - horizontal bit (w,h): wall between cell (w,h) and (w,h+1)
+ * The raw words are also the compact wall format for saving/sending boards.
+ */
+public class WallEdges
+{
+  private final int gridW;
+  private final int gridH;
+  private final long[] vertical;
+  private final long[] horizontal;
+  private int version;          // bumped on every change (cache invalidation)
+
+  public WallEdges(int gridW, int gridH)
+  {
+    this.gridW = gridW;
+    this.gridH = gridH;
+    int words = (gridW * gridH + 63) >>> 6;
+    vertical   = new long[words];
+    horizontal = new long[words];
+  }
+
+  /** Rebuild from saved words (see verticalWords / horizontalWords). */
+  public WallEdges(int gridW, int gridH, long[] verticalWords, long[] horizontalWords)
+  {
+    this(gridW, gridH);
+    if (verticalWords.length != vertical.length || horizontalWords.length != horizontal.length)
+      throw new IllegalArgumentException("wall words do not match a " + gridW + "x" + gridH + " grid");
+    System.arraycopy(verticalWords, 0, vertical, 0, vertical.length);
+    System.arraycopy(horizontalWords, 0, horizontal, 0, horizontal.length);
+  }
+
+  public int getGridW() { return gridW; }
+  public int getGridH() { return gridH; }
+
+  /** Changes whenever any wall is added or cleared; caches compare against it. */
+  public int getVersion() { return version; }
+
+  public void clear()
+  {
+    Arrays.fill(vertical, 0L);
+    Arrays.fill(horizontal, 0L);
+    version++;
+  }
+
+  public void addVertical(int w, int h)   { set(vertical, h*gridW + w);   version++; }
+  public void addHorizontal(int w, int h) { set(horizontal, h*gridW + w); version++; }
+
+  public boolean hasVertical(int w, int h)   { return get(vertical, h*gridW + w); }
+  public boolean hasHorizontal(int w, int h) { return get(horizontal, h*gridW + w); }
+
+  /**
+   * True if a wall lies on any edge crossed moving (dw,dh) cells from (w,h).
+   * A single step is one bit test; the caller keeps the target on the grid.
+   */
+  public boolean blocks(int w, int h, int dw, int dh)
+  {
+    for (; dw > 0; dw--, w++) if (get(vertical, h*gridW + w)) return true;
+    for (; dw < 0; dw++, w--) if (get(vertical, h*gridW + w - 1)) return true;
+    for (; dh > 0; dh--, h++) if (get(horizontal, h*gridW + w)) return true;
+    for (; dh < 0; dh++, h--) if (get(horizontal, (h-1)*gridW + w)) return true;
+    return false;
+  }
+
+  /** Next cell index >= from with a vertical wall, or -1 (like BitSet.nextSetBit). */
+  public int nextVertical(int from)   { return next(vertical, from); }
+  public int nextHorizontal(int from) { return next(horizontal, from); }
+
+  /** Replace all walls with saved words read straight from a buffer (e.g. a mapped BoardPack). */
+  public void load(LongBuffer verticalWords, LongBuffer horizontalWords)
+  {
+    if (verticalWords.remaining() != vertical.length || horizontalWords.remaining() != horizontal.length)
+      throw new IllegalArgumentException("wall words do not match a " + gridW + "x" + gridH + " grid");
+    verticalWords.get(vertical);
+    horizontalWords.get(horizontal);
+    version++;
+  }
+
+  /**
+   * Copy the walls of columns [from, from+cols) onto columns [to, to+cols);
+   * the ranges may overlap (endless mode slides its window this way).
+   */
+  public void copyColumns(int from, int to, int cols)
+  {
+    for (int h = 0; h < gridH; h++)
+    {
+      int row = h*gridW;
+      if (to < from) for (int i = 0; i < cols; i++)       move(row + from + i, row + to + i);
+      else           for (int i = cols - 1; i >= 0; i--) move(row + from + i, row + to + i);
+    }
+    version++;
+  }
+
+  /** Remove every wall of columns [w0, w0+cols). */
+  public void clearColumns(int w0, int cols)
+  {
+    for (int h = 0; h < gridH; h++)
+      for (int i = h*gridW + w0, end = i + cols; i < end; i++)
+      {
+        put(vertical, i, false);
+        put(horizontal, i, false);
+      }
+    version++;
+  }
+
+  /** Copy the raw words into flat arrays at offset (BatchEnv packs many boards this way). */
+  public void copyWordsTo(long[] verticalDst, long[] horizontalDst, int offset)
+  {
+    System.arraycopy(vertical, 0, verticalDst, offset, vertical.length);
+    System.arraycopy(horizontal, 0, horizontalDst, offset, horizontal.length);
+  }
+
+  public long[] verticalWords()   { return vertical.clone(); }
+  public long[] horizontalWords() { return horizontal.clone(); }
+
+  /** Number of distinct wall edges. */
+  public int count()
+  {
+    int n = 0;
+    for (long word : vertical)   n += Long.bitCount(word);
+    for (long word : horizontal) n += Long.bitCount(word);
+    return n;
+  }
+
+  /* ---------- bit helpers ---------- */
+
+  private static void set(long[] bits, int i)     { bits[i >>> 6] |= 1L << i; }
+  private static boolean get(long[] bits, int i)  { return (bits[i >>> 6] & (1L << i)) != 0; }
+
+  private static void put(long[] bits, int i, boolean on)
+  {
+    if (on) bits[i >>> 6] |= 1L << i;
+    else bits[i >>> 6] &= ~(1L << i);
+  }
+
+  private void move(int src, int dst)
+  {
+    put(vertical, dst, get(vertical, src));
+    put(horizontal, dst, get(horizontal, src));
+  }
+
+  private int next(long[] bits, int from)
+  {
+    if (from < 0) from = 0;
+    int wi = from >>> 6;
+    if (wi >= bits.length) return -1;
+    long word = bits[wi] & (-1L << from);
+    while (true)
+    {
+      if (word != 0)
+      {
+        int i = (wi << 6) + Long.numberOfTrailingZeros(word);
+        return i < gridW * gridH ? i : -1;
+      }
+      if (++wi == bits.length) return -1;
+      word = bits[wi];
+    }
+  }
+}
@@ -0,0 +1,56 @@
+import java.awt.Graphics;
+
+import escaperoom.bench.EngineOps;
+
+/**
+ * Bridges the default-package game classes to the JMH benchmarks
+ * (which must live in a named package). Engines and sessions are quiet
+ * (GameEventListener.NONE) and boards seeded, so every fork measures the
+ * same game and no message building.
+ */
+public class BenchAdapter implements EngineOps
+{
+  private static final long SEED = 1;
+
+  private GameEngine engine;
+  private GameGUI view;
+
+  public void newBoard(int gridW, int gridH, int walls, int prizes, int traps, int powerups)
+  {
+    engine = new GameEngine(gridW, gridH);
+    engine.setQuiet(true);
+    engine.setSeed(SEED);
+    engine.setWalls(walls);
+    engine.setPrizes(prizes);
+    engine.setTraps(traps);
+    engine.setPowerups(powerups);
+    engine.createBoard();
+  }
+
+  public void createBoard()                 { engine.createBoard(); }
+  public int move(int dx, int dy)           { return engine.movePlayer(dx, dy); }
+  public boolean isTrap(int dx, int dy)     { return engine.isTrap(dx, dy); }
+  public int disarmNearbyTrap()             { return engine.disarmNearbyTrap(); }
+  public int pickupPrize()                  { return engine.pickupPrize(); }
+  public int replay()                       { return engine.replay(); }
+
+  public void attachView(int width, int height)
+  {
+    view = new GameGUI(engine, false);
+    view.setSize(width, height);
+  }
+
+  public void paint(Graphics g)             { view.paintComponent(g); }
+
+  public int runScript(String[] commands)
+  {
+    GameEngine game = new GameEngine();
+    game.setQuiet(true);
+    game.setSeed(SEED);
+    game.createBoard();
+    GameSession session = new GameSession(game, new ScoreConfig(), GameEventListener.NONE);
+    for (String c : commands)
+      if (!session.execute(c)) break;
+    return session.finish();
+  }
+}
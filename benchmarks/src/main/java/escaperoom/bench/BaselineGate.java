@@ -0,0 +1,116 @@
+package escaperoom.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Release gate: compares a JMH CSV result file against a stored baseline.
+ * <P>
+ * Usage: BaselineGate baseline.csv current.csv [maxRegressionPercent=10]
+ * <P>
+ * Primary throughput scores must not drop, and gc.alloc.rate.norm (bytes/op)
+ * must not grow, by more than the allowed percentage. Benchmarks missing from
+ * either file are reported but do not fail the gate. Exits 1 on regression.
+ * <P>
+ * With no baseline file yet (a clean checkout) the gate is skipped, exit 0,
+ * with a note on recording one: copy a results.csv from the reference machine.
+ */
+public class BaselineGate
+{
+  private static final double ALLOC_SLACK_BYTES = 16;   // ignore noise on near-zero allocation
+
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 2)
+    {
+      System.err.println("usage: BaselineGate baseline.csv current.csv [maxRegressionPercent]");
+      System.exit(2);
+    }
+    double tolerance = (args.length > 2 ? Double.parseDouble(args[2]) : 10) / 100.0;
+
+    if (!Files.isRegularFile(Paths.get(args[0])))
+    {
+      System.out.println("SKIPPED: no baseline at " + args[0]
+                         + "; record one with: cp " + args[1] + " " + args[0]);
+      return;
+    }
+
+    Map<String, Row> base = read(args[0]);
+    Map<String, Row> cur  = read(args[1]);
+
+    int regressions = 0;
+    for (Map.Entry<String, Row> e : cur.entrySet())
+    {
+      Row now = e.getValue();
+      Row was = base.get(e.getKey());
+      if (was == null) { System.out.println("NEW       " + e.getKey()); continue; }
+
+      boolean alloc = now.unit.equals("B/op");
+      boolean bad = alloc ? now.score > was.score * (1 + tolerance) + ALLOC_SLACK_BYTES
+                          : now.score < was.score * (1 - tolerance);
+      if (bad) regressions++;
+      System.out.printf("%-9s %s  %.3f -> %.3f %s%n",
+                        bad ? "REGRESSED" : "ok", e.getKey(), was.score, now.score, now.unit);
+    }
+    for (String k : base.keySet())
+      if (!cur.containsKey(k)) System.out.println("MISSING   " + k);
+
+    System.out.println(regressions == 0 ? "PASS" : ("FAIL: " + regressions + " regression(s)"));
+    System.exit(regressions == 0 ? 0 : 1);
+  }
+
+  private static final class Row
+  {
+    final double score;
+    final String unit;
+    Row(double score, String unit) { this.score = score; this.unit = unit; }
+  }
+
+  /** Benchmark + params -> score, for primary and gc.alloc.rate.norm rows only. */
+  private static Map<String, Row> read(String file) throws IOException
+  {
+    List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+    Map<String, Row> rows = new LinkedHashMap<>();
+    if (lines.isEmpty()) return rows;
+
+    List<String> header = split(lines.get(0));
+    int bench = header.indexOf("Benchmark"), score = header.indexOf("Score"), unit = header.indexOf("Unit");
+    for (String line : lines.subList(1, lines.size()))
+    {
+      if (line.isEmpty()) continue;
+      List<String> f = split(line);
+      String name = f.get(bench);
+      int colon = name.indexOf(':');
+      if (colon >= 0 && !name.endsWith("gc.alloc.rate.norm")) continue;
+
+      StringBuilder key = new StringBuilder(name);
+      for (int i = unit + 1; i < f.size(); i++)
+        key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(f.get(i));
+      rows.put(key.toString(), new Row(Double.parseDouble(f.get(score)), f.get(unit)));
+    }
+    return rows;
+  }
+
+  /** JMH CSV: comma separated, fields optionally double-quoted. */
+  private static List<String> split(String line)
+  {
+    List<String> out = new ArrayList<>();
+    StringBuilder sb = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++)
+    {
+      char c = line.charAt(i);
+      if (c == '"') quoted = !quoted;
+      else if (c == ',' && !quoted) { out.add(sb.toString()); sb.setLength(0); }
+      else sb.append(c);
+    }
+    out.add(sb.toString());
+    return out;
+  }
+}
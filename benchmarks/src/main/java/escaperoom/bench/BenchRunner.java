@@ -0,0 +1,29 @@
+package escaperoom.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH suite with the gc profiler (allocation rate per op) and CSV
+ * results in results.csv. Any standard JMH command line option overrides these.
+ */
+public class BenchRunner
+{
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException
+  {
+    CommandLineOptions cmd = new CommandLineOptions(args);
+    Options opts = new OptionsBuilder()
+        .parent(cmd)
+        .addProfiler(GCProfiler.class)
+        .resultFormat(cmd.getResultFormat().orElse(ResultFormatType.CSV))
+        .result(cmd.getResult().orElse("results.csv"))
+        .build();
+    new Runner(opts).run();
+  }
+}
@@ -0,0 +1,39 @@
+package escaperoom.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/** createBoard at several sizes and item densities (fraction of cells holding an item). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBench
+{
+  @Param({ "8", "64", "512" })
+  public int size;
+
+  @Param({ "0.05", "0.25", "0.9" })
+  public double density;
+
+  private EngineOps ops;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    Targets.silenceStdout();
+    ops = Targets.newOps();
+    int cells = size * size;
+    int perKind = Math.max(1, (int) (cells * density / 3));
+    ops.newBoard(size, size, cells / 2, perKind, perKind, perKind);
+  }
+
+  @Benchmark
+  public void createBoard()
+  {
+    ops.createBoard();
+  }
+}
@@ -0,0 +1,35 @@
+package escaperoom.bench;
+
+import java.awt.Graphics;
+
+/**
+ * Game operations under benchmark.
+ * <P>
+ * The game classes live in the default package, which JMH benchmarks (and any
+ * named package) cannot import. BenchAdapter, in the default package, implements
+ * this interface; benchmarks create it once per trial through {@link Targets}
+ * and then make plain interface calls, so the hot path has no reflection.
+ */
+public interface EngineOps
+{
+  /** Fresh quiet engine of gridW x gridH with these counts, board generated from a fixed seed. */
+  void newBoard(int gridW, int gridH, int walls, int prizes, int traps, int powerups);
+
+  /** Regenerate the board of the current engine. */
+  void createBoard();
+
+  int move(int dx, int dy);
+  boolean isTrap(int dx, int dy);
+  int disarmNearbyTrap();
+  int pickupPrize();
+  int replay();
+
+  /** Attach an offscreen GameGUI (no JFrame) of the given pixel size. */
+  void attachView(int width, int height);
+
+  /** GameGUI.paintComponent into g. */
+  void paint(Graphics g);
+
+  /** New quiet 8x5 board (fixed seed) and session, run every command, return the final score. */
+  int runScript(String[] commands);
+}
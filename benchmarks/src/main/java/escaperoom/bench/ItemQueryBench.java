@@ -0,0 +1,52 @@
+package escaperoom.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Item queries at increasing item counts on a 128x128 board.
+ * Queries are made from the start cell; whether that hits an item depends on
+ * the generated board, but both paths should be constant time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemQueryBench
+{
+  @Param({ "10", "1000", "10000" })
+  public int items;
+
+  private EngineOps ops;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    Targets.silenceStdout();
+    ops = Targets.newOps();
+    int third = Math.max(1, items / 3);
+    ops.newBoard(128, 128, 100, third, third, items - 2*third);
+  }
+
+  @Benchmark
+  public boolean isTrap()
+  {
+    return ops.isTrap(1, 0);
+  }
+
+  /** After the first call this is the worst case: all five cells checked, nothing found. */
+  @Benchmark
+  public int disarmNearbyTrap()
+  {
+    return ops.disarmNearbyTrap();
+  }
+
+  @Benchmark
+  public int pickupPrize()
+  {
+    return ops.pickupPrize();
+  }
+}
@@ -0,0 +1,40 @@
+package escaperoom.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/** movePlayer cost at increasing wall counts on a 128x128 board; should stay flat. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBench
+{
+  private static final int[] DX = { 1, 0, -1, 0 };
+  private static final int[] DY = { 0, 1, 0, -1 };
+
+  @Param({ "1", "100", "1000", "8000" })
+  public int walls;
+
+  private EngineOps ops;
+  private int turn;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    Targets.silenceStdout();
+    ops = Targets.newOps();
+    ops.newBoard(128, 128, walls, 1, 1, 0);
+  }
+
+  /** Walks a small square; blocked moves (wall hits) are part of the mix. */
+  @Benchmark
+  public int move()
+  {
+    int d = turn++ & 3;
+    return ops.move(DX[d], DY[d]);
+  }
+}
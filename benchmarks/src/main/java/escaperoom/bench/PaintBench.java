@@ -0,0 +1,49 @@
+package escaperoom.bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/** Offscreen GameGUI.paintComponent of the 8x5 viewport into a BufferedImage. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBench
+{
+  @Param({ "8", "1024" })
+  public int size;
+
+  private EngineOps ops;
+  private BufferedImage image;
+  private Graphics2D g;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    Targets.silenceStdout();
+    ops = Targets.newOps();
+    int cells = size * size;
+    ops.newBoard(size, size, cells / 2, Math.max(1, cells * 3 / 40), Math.max(1, cells / 8), cells / 20);
+    ops.attachView(480, 300);
+    image = new BufferedImage(480, 300, BufferedImage.TYPE_INT_RGB);
+    g = image.createGraphics();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    g.dispose();
+  }
+
+  @Benchmark
+  public BufferedImage paint()
+  {
+    ops.paint(g);
+    return image;
+  }
+}
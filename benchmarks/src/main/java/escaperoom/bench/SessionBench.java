@@ -0,0 +1,36 @@
+package escaperoom.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/** A whole scripted game: new 8x5 board, the command script, final score. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionBench
+{
+  private static final String[] SCRIPT = {
+    "r", "ftr", "r", "p", "d", "dt", "jr", "ftd", "d", "p",
+    "r", "u", "jd", "l", "p", "dt", "r", "r", "jr", "p",
+    "help", "replay", "jr", "jr", "jr", "d", "d", "r", "p", "q"
+  };
+
+  private EngineOps ops;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    Targets.silenceStdout();
+    ops = Targets.newOps();
+  }
+
+  @Benchmark
+  public int scriptedSession()
+  {
+    return ops.runScript(SCRIPT);
+  }
+}
@@ -0,0 +1,33 @@
+package escaperoom.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/** Shared setup for the benchmarks. */
+final class Targets
+{
+  private Targets() {}
+
+  /** Default-package BenchAdapter, behind the EngineOps interface. */
+  static EngineOps newOps()
+  {
+    try
+    {
+      return (EngineOps) Class.forName("BenchAdapter").getDeclaredConstructor().newInstance();
+    }
+    catch (ReflectiveOperationException e)
+    {
+      throw new IllegalStateException("BenchAdapter missing from the benchmark build", e);
+    }
+  }
+
+  /**
+   * BenchAdapter already keeps engines and sessions quiet; this discards
+   * anything else printed to System.out (e.g. the first-frame line) so the
+   * benchmarks measure game logic rather than console I/O.
+   */
+  static void silenceStdout()
+  {
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+  }
+}
@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BatchEnv against GameSession, the rules it re-implements over flat arrays
+ * - Each board of the batch is rebuilt on its own engine from the batch's
+ *   per-board seed and driven with the same commands through a GameSession
+ * - After every command score, steps and position must match; at QUIT the
+ *   batch's final score must equal GameSession.finish()
+ */
+public class BatchEnvTest
+{
+  private static final int BOARDS = 8, COMMANDS = 400;
+  private static final long SEED = 141;
+  private static final Command[] ALL = Command.values();
+
+  @Test
+  public void matchesGameSessionCommandForCommand()
+  {
+    ScoreConfig cfg = new ScoreConfig();
+    BatchEnv env = new BatchEnv(BOARDS, GameEngine.DEFAULT_GRID_W, GameEngine.DEFAULT_GRID_H,
+                                cfg, COMMANDS + 1, 2, SEED);
+    GameSession[] sessions = new GameSession[BOARDS];
+    for (int i = 0; i < BOARDS; i++)
+    {
+      GameEngine game = new GameEngine(GameEngine.DEFAULT_GRID_W, GameEngine.DEFAULT_GRID_H);
+      game.setQuiet(true);
+      game.setSeed(Seeds.mix(SEED, (long) i << 32));      // episode 0 of board i
+      game.createBoard();
+      sessions[i] = new GameSession(game, cfg, GameEventListener.NONE);
+    }
+
+    // every command but QUIT, replays included; QUIT ends the run below
+    SplittableRandom rand = new SplittableRandom(SEED);
+    int[] actions = new int[BOARDS];
+    for (int s = 0; s < COMMANDS; s++)
+    {
+      for (int i = 0; i < BOARDS; i++)
+      {
+        Command c;
+        do c = ALL[rand.nextInt(ALL.length)]; while (c == Command.QUIT);
+        actions[i] = c.ordinal();
+        sessions[i].execute(c);
+      }
+      env.step(actions);
+      for (int i = 0; i < BOARDS; i++) assertBoardMatches(env, i, sessions[i], "command " + s);
+    }
+
+    Arrays.fill(actions, Command.QUIT.ordinal());
+    env.step(actions);
+    for (int i = 0; i < BOARDS; i++)
+    {
+      assertTrue(env.dones()[i], "board " + i + " done at QUIT");
+      assertEquals(sessions[i].finish(), env.finalScores()[i], "board " + i + " final score");
+    }
+  }
+
+  private static void assertBoardMatches(BatchEnv env, int i, GameSession session, String when)
+  {
+    GameEngine game = session.getEngine();
+    int[] obs = env.observations();
+    int o = i * env.obsSize();
+    String where = "board " + i + ", " + when;
+    assertEquals(session.getScore(), env.getScore(i), where + ": score");
+    assertEquals(game.getSteps(), env.getSteps(i), where + ": steps");
+    assertEquals(game.getPlayerCol(), obs[o], where + ": col");
+    assertEquals(game.getPlayerRow(), obs[o + 1], where + ": row");
+  }
+}
@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * BoardSolver's plans played for real
+ * - Each board is solved, then rebuilt from the same seed on a fresh engine and
+ *   the returned line is played through a GameSession
+ * - The session's final score must be the score the solver reported, within
+ *   the command budget
+ */
+public class BoardSolverTest
+{
+  private static final int BOARDS = 12;
+  private static final int GRID_W = GameEngine.DEFAULT_GRID_W, GRID_H = GameEngine.DEFAULT_GRID_H;
+
+  @Test
+  public void planScoresWhatTheSolverReports()
+  {
+    check(40);
+  }
+
+  /** Too few commands to collect everything: the line is a trade-off. */
+  @Test
+  public void shortBudgetPlanScoresWhatTheSolverReports()
+  {
+    check(12);
+  }
+
+  private static void check(int budget)
+  {
+    ScoreConfig cfg = new ScoreConfig();
+    for (int b = 0; b < BOARDS; b++)
+    {
+      long seed = 7919L * b + 3;
+      BoardSolver.Result r = new BoardSolver(board(seed), cfg, budget).solve();
+
+      GameSession session = new GameSession(board(seed), cfg, GameEventListener.NONE);
+      int commands = 0;
+      for (Command c : r.line)
+      {
+        if (c == Command.QUIT) break;
+        session.execute(c);
+        commands++;
+      }
+      String where = "seed " + seed + ", budget " + budget;
+      assertTrue(commands <= budget, where + ": " + commands + " commands");
+      assertEquals(r.score, session.finish(), where + ": score of the solver's line");
+    }
+  }
+
+  private static GameEngine board(long seed)
+  {
+    GameEngine game = new GameEngine(GRID_W, GRID_H);
+    game.setQuiet(true);
+    game.setSeed(seed);
+    game.createBoard();
+    return game;
+  }
+}
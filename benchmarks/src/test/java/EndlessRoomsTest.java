@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Endless mode's sliding window and per-room deltas
+ * - A prize taken in a room stays taken when the room leaves the window and
+ *   comes back
+ * - replay() restores the whole run, rooms outside the window included: the
+ *   prize is there again the next time its room slides in
+ */
+public class EndlessRoomsTest
+{
+  private static final int ROOM_W = 8, ROOM_H = 5;
+  private static final long FAR_ROOM = 3;        // outside the window once back at room 0
+
+  @Test
+  public void takenPrizeStaysTakenAcrossSlides()
+  {
+    GameEngine game = endless(141);
+    int[] prize = takePrizeIn(game, FAR_ROOM);
+
+    walkToRoom(game, 1);                            // window back at rooms 0..2
+    assertEquals(0, game.getFirstRoom(), "window after walking back");
+    walkToRoom(game, FAR_ROOM);
+    assertEquals(ItemGrid.NONE, itemAt(game, prize), "taken prize after sliding back in");
+  }
+
+  /** Slide right, slide back, replay, slide right again. */
+  @Test
+  public void replayRestoresRoomsOutsideTheWindow()
+  {
+    GameEngine game = endless(141);
+    int[] prize = takePrizeIn(game, FAR_ROOM);
+
+    walkToRoom(game, 1);
+    assertEquals(0, game.getFirstRoom(), "window after walking back");
+    game.replay();
+    assertEquals(0, game.getWorldCol(), "player after replay");
+
+    walkToRoom(game, FAR_ROOM);
+    assertEquals(ItemGrid.PRIZE, itemAt(game, prize), "prize after replay");
+  }
+
+  private static GameEngine endless(long seed)
+  {
+    GameEngine game = GameEngine.endless(ROOM_W, ROOM_H);
+    game.setQuiet(true);
+    game.setSeed(seed);
+    game.createBoard();
+    return game;
+  }
+
+  /** Walk into room and pick up one of its prizes; its world {col, row}. */
+  private static int[] takePrizeIn(GameEngine game, long room)
+  {
+    walkToRoom(game, room);
+    int x0 = (int) (room - game.getFirstRoom()) * ROOM_W;
+    for (int h = 0; h < ROOM_H; h++)
+      for (int w = x0; w < x0 + ROOM_W; w++)
+      {
+        if (game.getItem(w, h) != ItemGrid.PRIZE) continue;
+        int[] prize = { (int) (game.getFirstRoom() * ROOM_W + w), h };
+        if (!walkTo(game, prize[0], prize[1])) continue;
+        assertTrue(game.pickupPrize() > 0, "pickup in room " + room);
+        return prize;
+      }
+    throw new AssertionError("no reachable prize in room " + room);
+  }
+
+  private static int itemAt(GameEngine game, int[] worldCell)
+  {
+    return game.getItem((int) (worldCell[0] - game.getFirstRoom() * ROOM_W), worldCell[1]);
+  }
+
+  /** Walk to the first column of room, through the rooms on the way. */
+  private static void walkToRoom(GameEngine game, long room)
+  {
+    for (int h = 0; h < ROOM_H; h++)
+      if (walkTo(game, (int) (room * ROOM_W), h)) return;
+    throw new AssertionError("room " + room + " unreachable");
+  }
+
+  /**
+   * Walk to world cell (worldCol, h) a step at a time, re-planning after each
+   * step since the window may have slid; false if it cannot be reached.
+   */
+  private static boolean walkTo(GameEngine game, int worldCol, int h)
+  {
+    while (game.getWorldCol() != worldCol || game.getPlayerRow() != h)
+    {
+      int w = (int) (worldCol - game.getFirstRoom() * ROOM_W);
+      w = Math.max(0, Math.min(game.getGridW() - 1, w));
+      int[] path = game.getPathfinder().shortestPath(game.getPlayerCol(), game.getPlayerRow(), w, h);
+      if (path == null || path.length < 2) return false;
+      int next = path[1];
+      int dx = next % game.getGridW() - game.getPlayerCol(), dy = next / game.getGridW() - game.getPlayerRow();
+      assertEquals(0, game.movePlayer(dx, dy), "step along the path");
+    }
+    return true;
+  }
+}